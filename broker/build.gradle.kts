@@ -30,4 +30,14 @@ dependencies {
     /* internal projects */
     implementation(project(":common"))
     implementation(project(":network")) // for rpc negotiating
+    /* opt-in native transport, see network.dubbo.transport.native */
+    runtimeOnly(variantOf(libs.netty.epoll) { classifier("linux-x86_64") })
+    runtimeOnly(variantOf(libs.netty.epoll) { classifier("linux-aarch_64") })
+    /* test */
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
\ No newline at end of file
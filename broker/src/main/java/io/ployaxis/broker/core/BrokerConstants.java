@@ -9,4 +9,160 @@ public enum BrokerConstants {
     ;
 
     public static final String DUBBO_APPLICATION_NAME = "io.polyaxis.dubbo.broker";
+
+    /// thread pool group of broker to dispatcher heartbeats
+    public static final String HEARTBEAT_EXECUTOR_GROUP = "io.polyaxis.broker.heartbeat";
+
+    public static final Long HEARTBEAT_DEFAULT_MIN_INTERVAL = 1_000L;
+
+    public static final Long HEARTBEAT_DEFAULT_MAX_INTERVAL = 5_000L;
+
+    /// thread pool group of broker registrations
+    public static final String REGISTER_EXECUTOR_GROUP = "io.polyaxis.broker.register";
+
+    public static final Integer REGISTER_DEFAULT_PARALLELISM = 4;
+
+    public static final Long REGISTER_DEFAULT_BUDGET = 10_000L;
+
+    public static final Integer REGISTER_DEFAULT_TIMEOUT = 3_000;
+
+    public static final Integer REFRESH_DEFAULT_TIMEOUT = 2_000;
+
+    /// retries of one register or refresh, each one withdrawn from the retry budget
+    public static final Integer REGISTER_MAX_RETRIES = 2;
+
+    /// first backoff between register or refresh retries (ms), doubling per retry
+    public static final Long REGISTER_RETRY_BACKOFF = 100L;
+
+    /// thread pool group of plugin preloads at startup
+    public static final String PRELOAD_EXECUTOR_GROUP = "io.polyaxis.broker.preload";
+
+    public static final Long PRELOAD_DEFAULT_BUDGET = 60_000L;
+
+    /// thread pool group of virtual threads building plugins from new settings
+    public static final String SETTINGS_EXECUTOR_GROUP = "io.polyaxis.broker.settings";
+
+    /// thread pool group of virtual threads running blocking plugins
+    public static final String EXECUTION_VIRTUAL_GROUP = "io.polyaxis.broker.execution.virtual";
+
+    /// thread pool group of platform threads running pinning plugins
+    public static final String EXECUTION_PLATFORM_GROUP = "io.polyaxis.broker.execution.platform";
+
+    public static final Integer EXECUTION_DEFAULT_POOL_SIZE = 64;
+
+    /// thread pool group flushing due invocation batches
+    public static final String BATCH_EXECUTOR_GROUP = "io.polyaxis.broker.batch";
+
+    public static final Integer BATCH_DEFAULT_MAX_SIZE = 32;
+
+    public static final Long BATCH_DEFAULT_MAX_DELAY = 5L;
+
+    /// thread pool group flushing due coalesced frames
+    public static final String COALESCE_EXECUTOR_GROUP = "io.polyaxis.broker.coalesce";
+
+    public static final Integer STATS_DEFAULT_SAMPLE_PERIOD = 8;
+
+    public static final Integer LANE_DEFAULT_CONCURRENCY = 256;
+
+    public static final Integer LANE_DEFAULT_QUEUE = 1024;
+
+    public static final Integer LANE_DEFAULT_INTERACTIVE_WEIGHT = 8;
+
+    public static final Integer LANE_DEFAULT_BACKGROUND_WEIGHT = 1;
+
+    /// slots of [#LANE_DEFAULT_CONCURRENCY] background invocations never take
+    public static final Integer LANE_DEFAULT_INTERACTIVE_RESERVED = 32;
+
+    public static final String STREAM_DEFAULT_OVERFLOW = "pause";
+
+    public static final Integer STREAM_DEFAULT_BUFFER_FRAMES = 256;
+
+    public static final Long STREAM_DEFAULT_BUFFER_BYTES = 4L * 1024 * 1024;
+
+    /// Broker properties key
+    public enum Properties {
+        ;
+
+        private static final String HEARTBEAT_KEY = "broker.heartbeat.";
+
+        /// `broker.heartbeat.interval.min`, interval right after a change or failure (ms)
+        public static final String HEARTBEAT_MIN_INTERVAL = HEARTBEAT_KEY + "interval.min";
+
+        /// `broker.heartbeat.interval.max`, interval reached while nothing changes (ms)
+        public static final String HEARTBEAT_MAX_INTERVAL = HEARTBEAT_KEY + "interval.max";
+
+        private static final String REGISTER_KEY = "broker.register.";
+
+        /// `broker.register.parallelism`, dispatchers registered to concurrently
+        public static final String REGISTER_PARALLELISM = REGISTER_KEY + "parallelism";
+
+        /// `broker.register.quorum`, acknowledgements needed to be ready, majority by default
+        public static final String REGISTER_QUORUM = REGISTER_KEY + "quorum";
+
+        /// `broker.register.budget`, startup time spent waiting for the quorum (ms)
+        public static final String REGISTER_BUDGET = REGISTER_KEY + "budget";
+
+        /// `broker.register.timeout`, timeout of one `registerBroker` call (ms)
+        public static final String REGISTER_TIMEOUT = REGISTER_KEY + "timeout";
+
+        /// `broker.refresh.timeout`, timeout of one `refreshBroker` call (ms)
+        public static final String REFRESH_TIMEOUT = "broker.refresh.timeout";
+
+        /// `broker.preload.budget`, startup time spent waiting for plugins to preload (ms)
+        public static final String PRELOAD_BUDGET = "broker.preload.budget";
+
+        private static final String EXECUTION_KEY = "broker.execution.";
+
+        /// `broker.execution.mode.<plugin id>`, one of `event-loop`, `virtual-thread`, `platform-pool`,
+        /// overrides the mode the plugin declares
+        public static final String EXECUTION_MODE = EXECUTION_KEY + "mode.";
+
+        /// `broker.execution.pool.size`, threads of the platform pool
+        public static final String EXECUTION_POOL_SIZE = EXECUTION_KEY + "pool.size";
+
+        private static final String BATCH_KEY = "broker.batch.";
+
+        /// `broker.batch.max.size`, invocations of a batch capability collected into one batch
+        public static final String BATCH_MAX_SIZE = BATCH_KEY + "max.size";
+
+        /// `broker.batch.max.delay`, time the first invocation of a batch waits for others (ms)
+        public static final String BATCH_MAX_DELAY = BATCH_KEY + "max.delay";
+
+        /// `broker.stats.sample.period`, one in that many plugin calls is measured for CPU and allocations,
+        /// `0` disables measuring
+        public static final String STATS_SAMPLE_PERIOD = "broker.stats.sample.period";
+
+        private static final String LANE_KEY = "broker.lane.";
+
+        /// `broker.lane.concurrency`, capability invocations running at once across lanes
+        public static final String LANE_CONCURRENCY = LANE_KEY + "concurrency";
+
+        /// `broker.lane.queue`, invocations waiting per lane before new ones are rejected
+        public static final String LANE_QUEUE = LANE_KEY + "queue";
+
+        /// `broker.lane.weight.interactive`, share of freed slots given to interactive invocations
+        public static final String LANE_INTERACTIVE_WEIGHT = LANE_KEY + "weight.interactive";
+
+        /// `broker.lane.weight.background`, share of freed slots given to background invocations
+        public static final String LANE_BACKGROUND_WEIGHT = LANE_KEY + "weight.background";
+
+        /// `broker.lane.reserved.interactive`, slots kept for interactive invocations, background
+        /// invocations run in the others only
+        public static final String LANE_INTERACTIVE_RESERVED = LANE_KEY + "reserved.interactive";
+
+        private static final String STREAM_KEY = "broker.stream.";
+
+        /// `broker.stream.overflow`, one of `pause`, `drop`, `fail`
+        public static final String STREAM_OVERFLOW = STREAM_KEY + "overflow";
+
+        /// `broker.stream.buffer.frames`, response frames buffered per capability stream
+        public static final String STREAM_BUFFER_FRAMES = STREAM_KEY + "buffer.frames";
+
+        /// `broker.stream.buffer.bytes`, serialized response bytes buffered per capability stream
+        public static final String STREAM_BUFFER_BYTES = STREAM_KEY + "buffer.bytes";
+
+        /// `broker.stream.coalesce.capabilities`, comma separated `capability:bytes:delay` of
+        /// capabilities whose small frames are merged until `bytes` add up or `delay` (ms) elapsed
+        public static final String STREAM_COALESCE_CAPABILITIES = STREAM_KEY + "coalesce.capabilities";
+    }
 }
@@ -1,17 +1,37 @@
 package io.ployaxis.broker.core;
 
+import io.ployaxis.broker.plugin.PluginCatalog;
+import io.ployaxis.broker.plugin.PluginRuntime;
 import io.ployaxis.broker.utils.DispatcherConfigReader;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.context.EnvironmentUtils;
 import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.DubboConstants;
+import io.polyaxis.network.RetryBudget;
+import io.polyaxis.network.dispatcher.BrokerRefreshReq;
 import io.polyaxis.network.dispatcher.BrokerRegisterReq;
 import io.polyaxis.network.dispatcher.DispatcherService;
+import io.polyaxis.network.payload.PayloadCompression;
+import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
 import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.config.MethodConfig;
 import org.apache.dubbo.config.ReferenceConfig;
 import org.apache.dubbo.config.bootstrap.DubboBootstrap;
 import org.slf4j.Logger;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /// **Broker** client is a type of _dubbo consumer_, charge on consuming register and
 /// refresh service provided by each dispatcher server. hinge upon this, broker can
@@ -20,6 +40,22 @@ import java.util.List;
 /// so, each broker will hold all dispatchers' connection in memory, then could
 /// send requests regularly to each dispatcher.
 ///
+/// registration carries the full [PluginCatalog] and its epoch, refreshes only
+/// carry the delta since the epoch each dispatcher acknowledged last. when a
+/// dispatcher reports diverged epochs, the broker registers to it again.
+///
+/// registration fans out to every dispatcher concurrently (bounded by
+/// `broker.register.parallelism`), the broker is ready once `broker.register.quorum`
+/// dispatchers acknowledged, the others keep registering in the background.
+///
+/// refreshes also carry the resource usage of every plugin, so dispatchers can
+/// route by the broker's actual load.
+///
+/// refreshes double as heartbeats: they are sent on a jittered, adaptive interval
+/// which drops to `broker.heartbeat.interval.min` whenever the catalogue changed
+/// or a dispatcher is not registered, and backs off towards
+/// `broker.heartbeat.interval.max` while everything is steady.
+///
 /// @author github.com/MoritzArena
 /// @date 2025/07/08
 /// @since 1.0
@@ -27,37 +63,263 @@ public class BrokerDubboClient {
 
     private static final Logger LOGGER = LoggerScope.DUBBO;
 
-    private final List<ReferenceConfig<DispatcherService>> dispatcherProviders = new ArrayList<>(1 << 3);
+    private static final long MIN_INTERVAL = Long.getLong(
+            BrokerConstants.Properties.HEARTBEAT_MIN_INTERVAL, BrokerConstants.HEARTBEAT_DEFAULT_MIN_INTERVAL);
+
+    private static final long MAX_INTERVAL = Math.max(MIN_INTERVAL, Long.getLong(
+            BrokerConstants.Properties.HEARTBEAT_MAX_INTERVAL, BrokerConstants.HEARTBEAT_DEFAULT_MAX_INTERVAL));
+
+    /// +/- ratio applied to every interval so brokers do not beat in lockstep
+    private static final double JITTER = 0.2D;
+
+    private static final int PARALLELISM = Math.max(1, Integer.getInteger(
+            BrokerConstants.Properties.REGISTER_PARALLELISM, BrokerConstants.REGISTER_DEFAULT_PARALLELISM));
+
+    private static final ExecutorService REGISTER_EXECUTOR =
+            ExecutorFactory.Managed.newFixedExecutorService(BrokerConstants.REGISTER_EXECUTOR_GROUP, PARALLELISM,
+                    new NamedThreadFactory(BrokerConstants.REGISTER_EXECUTOR_GROUP));
+
+    private static final ScheduledExecutorService HEARTBEAT_EXECUTOR =
+            ExecutorFactory.Managed.newSingleScheduledExecutorService(BrokerConstants.HEARTBEAT_EXECUTOR_GROUP,
+                    new NamedThreadFactory(BrokerConstants.HEARTBEAT_EXECUTOR_GROUP));
+
+    private final List<DispatcherSession> dispatcherProviders = new ArrayList<>(1 << 3);
+
+    private final PluginCatalog catalog;
+
+    /// source of the plugin loads carried by refreshes
+    private final PluginRuntime runtime;
+
+    /// compresses catalogues with the codecs each dispatcher advertised
+    private final PayloadCompression compression;
+
+    /// caps register and refresh retries to a fraction of successful calls
+    private final RetryBudget retries;
 
     private final Integer portOffset;
 
+    /// dubbo(tri://) port of this broker's own server, advertised to dispatchers
+    private final Integer brokerPort;
+
+    /// current heartbeat interval, only touched by the heartbeat executor
+    private long intervalMillis = MIN_INTERVAL;
+
+    /// catalogue epoch at the previous heartbeat
+    private long lastBeatEpoch = -1L;
+
+    private volatile boolean closed;
+
+    /// completed once the registration quorum is reached
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
     @SuppressWarnings("rawtypes")
     public BrokerDubboClient(
             final DubboBootstrap bootstrap,
-            final Integer portOffset
+            final Integer portOffset,
+            final Integer brokerPort,
+            final PluginCatalog catalog,
+            final PluginRuntime runtime,
+            final PayloadCompression compression,
+            final RetryBudget retries
     ) {
         this.portOffset = portOffset;
+        this.brokerPort = brokerPort;
+        this.catalog = catalog;
+        this.runtime = runtime;
+        this.compression = compression;
+        this.retries = retries;
         // construct consumer reference configs
         this.constructReferenceConfigs();
         LOGGER.info("successfully build {} dubbo(tri://) consumer client(s), waiting for unified start", dispatcherProviders.size());
         // dubbo bootstrap
         bootstrap.references(dispatcherProviders.stream()
-                .map(item -> (ReferenceConfig) item).toList());
-        // start scheduled tasks
-        this.scheduledTasks();
-    }
-
-    private void scheduledTasks() {
-        for (final var provider : this.dispatcherProviders) {
-            LOGGER.info("start register broker to {}", provider.getUrl());
-            provider.get()
-                    .registerBroker(Uni.createFrom().item(BrokerRegisterReq.newBuilder().build()))
-                    .subscribe()
-                    .with(
-                            res -> LOGGER.info("consumeOneToMany get response: {}", res.getMessage()),
-                            err -> LOGGER.error("consumeOneToMany failed!", err)
-                    );
+                .map(item -> (ReferenceConfig) item.getReference()).toList());
+    }
+
+    /// Register to every dispatcher concurrently and start heartbeats, to be
+    /// called once this broker's own server is up.
+    public void start() {
+        final var total = this.dispatcherProviders.size();
+        final var quorum = Math.min(total, Math.max(Math.min(total, 1), Integer.getInteger(
+                BrokerConstants.Properties.REGISTER_QUORUM, total / 2 + 1)));
+        LOGGER.info("start register broker to {} dispatcher(s), ready at {} acknowledgement(s)", total, quorum);
+        if (quorum == 0) {
+            this.ready.complete(null);
         }
+        final var acks = new AtomicInteger();
+        Multi.createFrom().iterable(this.dispatcherProviders)
+                .onItem().transformToUni(this::register).merge(PARALLELISM)
+                .subscribe()
+                .with(
+                        acked -> {
+                            if (acked && acks.incrementAndGet() == quorum) {
+                                this.ready.complete(null);
+                            }
+                        },
+                        () -> LOGGER.info("broker registered to {} of {} dispatcher(s)", acks.get(), total)
+                );
+        this.scheduleHeartbeat();
+    }
+
+    /// Wait until the registration quorum is reached.
+    ///
+    /// @param timeoutMillis time budget (ms)
+    /// @return `true` if ready within the budget
+    public boolean awaitReady(final long timeoutMillis) {
+        try {
+            this.ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public boolean isReady() {
+        return this.ready.isDone();
+    }
+
+    public void close() {
+        this.closed = true;
+    }
+
+    private void scheduleHeartbeat() {
+        if (this.closed) {
+            return;
+        }
+        final var jitter = 1D + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        HEARTBEAT_EXECUTOR.schedule(this::heartbeat, (long) (this.intervalMillis * jitter), TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat() {
+        try {
+            final var epoch = this.catalog.getEpoch();
+            var steady = epoch == this.lastBeatEpoch;
+            for (final var session : this.dispatcherProviders) {
+                steady &= session.getAckedEpoch() != DispatcherSession.UNREGISTERED;
+            }
+            this.lastBeatEpoch = epoch;
+            this.intervalMillis = steady ? Math.min(this.intervalMillis * 3 / 2, MAX_INTERVAL) : MIN_INTERVAL;
+            this.refresh();
+        } catch (Exception e) {
+            LOGGER.error("broker heartbeat failed!", e);
+        } finally {
+            this.scheduleHeartbeat();
+        }
+    }
+
+    /// Send the catalogue delta to every dispatcher, registering again where
+    /// the delta cannot be applied.
+    public void refresh() {
+        for (final var session : this.dispatcherProviders) {
+            this.refresh(session);
+        }
+    }
+
+    /// Register with full catalogue, resolving to whether the dispatcher acknowledged.
+    private Uni<Boolean> register(final DispatcherSession session) {
+        if (!session.tryBegin()) {
+            return Uni.createFrom().item(false);
+        }
+        final var catalogue = this.catalog.full();
+        // stub resolution may block on connect, keep it off the caller's thread
+        return this.withRetries(Uni.createFrom().deferred(() -> session.stub()
+                                .registerBroker(Uni.createFrom().item(this.constructRegisterReq(session, catalogue))))
+                        .runSubscriptionOn(REGISTER_EXECUTOR))
+                .onItem().transform(res -> {
+                    session.setCodecs(res.getAcceptedCodecsList());
+                    session.ack(catalogue.getEpoch());
+                    session.end();
+                    LOGGER.info("register broker to {} at epoch {} get response: {}",
+                            session.getReference().getUrl(), catalogue.getEpoch(), res.getMessage());
+                    return true;
+                })
+                .onFailure().recoverWithItem(err -> {
+                    session.reset();
+                    session.end();
+                    LOGGER.error("register broker to {} failed!", session.getReference().getUrl(), err);
+                    return false;
+                });
+    }
+
+    private void refresh(final DispatcherSession session) {
+        final var ackedEpoch = session.getAckedEpoch();
+        final var delta = ackedEpoch == DispatcherSession.UNREGISTERED ? null : this.catalog.since(ackedEpoch);
+        if (delta == null) {
+            // never registered, or lagging behind the catalogue's tombstones
+            this.register(session).subscribe().with(ignored -> {
+            });
+            return;
+        }
+        if (!session.tryBegin()) {
+            return;
+        }
+        this.withRetries(Uni.createFrom().deferred(() -> session.stub()
+                        .refreshBroker(Uni.createFrom().item(this.constructRefreshReq(session, delta)))))
+                .subscribe()
+                .with(
+                        res -> {
+                            session.setCodecs(res.getAcceptedCodecsList());
+                            session.end();
+                            if (res.getResyncRequired()) {
+                                LOGGER.info("dispatcher {} asks for full resync", session.getReference().getUrl());
+                                session.reset();
+                                this.register(session).subscribe().with(ignored -> {
+                                });
+                            } else {
+                                session.ack(res.getEpoch());
+                            }
+                        },
+                        err -> {
+                            session.end();
+                            LOGGER.warn("refresh broker failed: {}", err.getMessage());
+                        }
+                );
+    }
+
+    /// `call` retried on an unreachable dispatcher while the retry budget allows, successes refill the budget
+    private <T> Uni<T> withRetries(final Uni<T> call) {
+        return call
+                .onItem().invoke(this.retries::onSuccess)
+                .onFailure(err -> RetryBudget.isRetryable(err) && this.retries.tryRetry())
+                .retry().withBackOff(Duration.ofMillis(BrokerConstants.REGISTER_RETRY_BACKOFF))
+                .atMost(BrokerConstants.REGISTER_MAX_RETRIES);
+    }
+
+    /// construct [BrokerRegisterReq] advertising this broker's address, codecs and full catalogue
+    private BrokerRegisterReq constructRegisterReq(
+            final DispatcherSession session,
+            final PluginCatalog.Delta catalogue
+    ) {
+        return BrokerRegisterReq.newBuilder()
+                .setBrokerId(this.getBrokerId())
+                .setBrokerHost(EnvironmentUtils.getAddress())
+                .setBrokerPort(this.brokerPort)
+                .putAllPlugins(this.compression.compress(PayloadCompression.REGISTER_BROKER,
+                        catalogue.getUpserted(), session.getCodecs()))
+                .setEpoch(catalogue.getEpoch())
+                .addAllAcceptedCodecs(this.compression.getAccepted())
+                .build();
+    }
+
+    /// construct [BrokerRefreshReq] carrying `delta` and the current plugin loads
+    private BrokerRefreshReq constructRefreshReq(final DispatcherSession session, final PluginCatalog.Delta delta) {
+        return BrokerRefreshReq.newBuilder()
+                .setBrokerId(this.getBrokerId())
+                .setForceUpdate(delta.isFull())
+                .setBaseEpoch(delta.getBaseEpoch())
+                .setEpoch(delta.getEpoch())
+                .putAllPlugins(this.compression.compress(PayloadCompression.REFRESH_BROKER,
+                        delta.getUpserted(), session.getCodecs()))
+                .addAllRemovedPlugins(delta.getRemoved())
+                .putAllPluginLoads(this.runtime.loads())
+                .build();
+    }
+
+    private String getBrokerId() {
+        return EnvironmentUtils.getAddress() + ":" + this.brokerPort;
     }
 
     /// construct [ReferenceConfig]s
@@ -69,7 +331,7 @@ public class BrokerDubboClient {
             // craft dubbo consumer reference config
             final var dispatcherReferenceConfig =
                     this.constructReferenceConfig(dispatcherIp, dispatcherPort);
-            this.dispatcherProviders.add(dispatcherReferenceConfig);
+            this.dispatcherProviders.add(new DispatcherSession(dispatcherReferenceConfig));
         }
     }
 
@@ -84,11 +346,32 @@ public class BrokerDubboClient {
         // use tri:// protocol
         consumer.setProtocol(CommonConstants.TRIPLE);
         consumer.setProxy(CommonConstants.NATIVE_STUB);
-        consumer.setRetries(3);
-        consumer.setTimeout(10000);
+        // retries are budgeted by the client, never multiplied by dubbo
+        consumer.setRetries(0);
+        consumer.setTimeout(Math.max(this.registerTimeout(), this.refreshTimeout()));
+        consumer.setMethods(List.of(
+                method(DubboConstants.METHOD_REGISTER_BROKER, this.registerTimeout()),
+                method(DubboConstants.METHOD_REFRESH_BROKER, this.refreshTimeout())));
         // need reset triple protocol here
         consumer.setUrl(CommonConstants.TRIPLE + "://"
                 + dispatcherIp + ":" + (dispatcherPort + this.portOffset));
         return consumer;
     }
+
+    private int registerTimeout() {
+        return Integer.getInteger(BrokerConstants.Properties.REGISTER_TIMEOUT, BrokerConstants.REGISTER_DEFAULT_TIMEOUT);
+    }
+
+    private int refreshTimeout() {
+        return Integer.getInteger(BrokerConstants.Properties.REFRESH_TIMEOUT, BrokerConstants.REFRESH_DEFAULT_TIMEOUT);
+    }
+
+    /// [MethodConfig] of `name` with its own timeout, never retried by dubbo
+    private static MethodConfig method(final String name, final int timeoutMillis) {
+        final var method = new MethodConfig();
+        method.setName(name);
+        method.setTimeout(timeoutMillis);
+        method.setRetries(0);
+        return method;
+    }
 }
@@ -1,9 +1,13 @@
 package io.ployaxis.broker.core;
 
+import io.ployaxis.broker.lane.LaneScheduler;
+import io.ployaxis.broker.plugin.PluginRuntime;
+import io.ployaxis.broker.stream.FrameCoalescer;
+import io.ployaxis.broker.stream.StreamBackpressure;
 import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.TripleTransport;
 import io.polyaxis.network.broker.BrokerService;
-import org.apache.dubbo.common.constants.CommonConstants;
-import org.apache.dubbo.config.ProtocolConfig;
+import io.polyaxis.network.payload.PayloadCompression;
 import org.apache.dubbo.config.ServiceConfig;
 import org.apache.dubbo.config.bootstrap.DubboBootstrap;
 import org.slf4j.Logger;
@@ -19,19 +23,32 @@ public class BrokerDubboServer {
 
     public BrokerDubboServer(
             final DubboBootstrap bootstrap,
-            final Integer actualPort
+            final Integer actualPort,
+            final TripleTransport transport,
+            final PluginRuntime runtime,
+            final LaneScheduler lanes,
+            final FrameCoalescer coalescer,
+            final StreamBackpressure backpressure,
+            final PayloadCompression compression
     ) {
-        final var provider = this.constructServiceConfig();
+        final var provider = this.constructServiceConfig(runtime, lanes, coalescer, backpressure, compression);
         // usually use actualPort(port + 1000) as broker dubbo server port
-        bootstrap.protocol(new ProtocolConfig(CommonConstants.TRIPLE, actualPort)).service(provider);
-        LOGGER.info("broker dubbo(tri://) server has been built at port {}, waiting for unified start", actualPort);
+        bootstrap.protocol(transport.protocol(actualPort)).service(provider);
+        LOGGER.info("broker dubbo(tri://) server has been built at port {} with {}, waiting for unified start",
+                actualPort, transport);
     }
 
     /// construct [BrokerService]s config
-    private ServiceConfig<BrokerService> constructServiceConfig() {
+    private ServiceConfig<BrokerService> constructServiceConfig(
+            final PluginRuntime runtime,
+            final LaneScheduler lanes,
+            final FrameCoalescer coalescer,
+            final StreamBackpressure backpressure,
+            final PayloadCompression compression
+    ) {
         final ServiceConfig<BrokerService> serviceConfig = new ServiceConfig<>();
         serviceConfig.setInterface(BrokerService.class);
-        serviceConfig.setRef(new BrokerServiceProvider());
+        serviceConfig.setRef(new BrokerServiceProvider(runtime, lanes, coalescer, backpressure, compression));
         return serviceConfig;
     }
 }
@@ -1,8 +1,24 @@
 package io.ployaxis.broker.core;
 
+import io.ployaxis.broker.lane.LaneScheduler;
+import io.ployaxis.broker.plugin.BatchWindow;
+import io.ployaxis.broker.plugin.PluginCatalog;
+import io.ployaxis.broker.plugin.PluginExecutors;
+import io.ployaxis.broker.plugin.PluginFactory;
+import io.ployaxis.broker.plugin.PluginRuntime;
+import io.ployaxis.broker.stream.FrameCoalescer;
+import io.ployaxis.broker.stream.OverflowPolicy;
+import io.ployaxis.broker.stream.StreamBackpressure;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
 import io.polyaxis.api.utils.context.EnvironmentUtils;
 import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.api.utils.misc.StringUtils;
 import io.polyaxis.network.DubboConstants;
+import io.polyaxis.network.RetryBudget;
+import io.polyaxis.network.TripleTransport;
+import io.polyaxis.network.broker.Priority;
+import io.polyaxis.network.payload.PayloadCompression;
+import io.polyaxis.network.type.AnyTypeRegistry;
 import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Singleton;
@@ -10,8 +26,19 @@ import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.bootstrap.DubboBootstrap;
 import org.slf4j.Logger;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /// Broker Dubbo Worker.
 ///
+/// Plugins preload concurrently with the Dubbo bootstrap, the broker registers
+/// to dispatchers once they are ready or `broker.preload.budget` ran out.
+///
 /// @author github.com/MoritzArena
 /// @date 2025/07/08
 /// @since 1.0
@@ -24,8 +51,22 @@ public class BrokerDubboWorker {
     private static final Integer PORT_OFFSET = Integer.getInteger(
             DubboConstants.Properties.SERVER_PORT_OFFSET, DubboConstants.SERVER_DEFAULT_OFFSET);
 
+    private static final Long REGISTER_BUDGET = Long.getLong(
+            BrokerConstants.Properties.REGISTER_BUDGET, BrokerConstants.REGISTER_DEFAULT_BUDGET);
+
+    private static final Long PRELOAD_BUDGET = Long.getLong(
+            BrokerConstants.Properties.PRELOAD_BUDGET, BrokerConstants.PRELOAD_DEFAULT_BUDGET);
+
     private final DubboBootstrap bootstrap;
 
+    private final PluginCatalog catalog;
+
+    private final PluginRuntime runtime;
+
+    private final LaneScheduler lanes;
+
+    private final StreamBackpressure backpressure;
+
     private final BrokerDubboClient brokerDubboClient;
 
     private final BrokerDubboServer brokerDubboServer;
@@ -38,12 +79,101 @@ public class BrokerDubboWorker {
         appConfig.setQosPort(-1);
         appConfig.setQosAcceptForeignIp(false);
         this.bootstrap.application(appConfig);
+        // plugins exposed to dispatchers
+        this.catalog = new PluginCatalog();
+        final var executors = new PluginExecutors(BrokerConstants.EXECUTION_VIRTUAL_GROUP,
+                BrokerConstants.EXECUTION_PLATFORM_GROUP,
+                Integer.getInteger(BrokerConstants.Properties.EXECUTION_POOL_SIZE,
+                        BrokerConstants.EXECUTION_DEFAULT_POOL_SIZE));
+        final var batchWindow = new BatchWindow(
+                Integer.getInteger(BrokerConstants.Properties.BATCH_MAX_SIZE, BrokerConstants.BATCH_DEFAULT_MAX_SIZE),
+                Long.getLong(BrokerConstants.Properties.BATCH_MAX_DELAY, BrokerConstants.BATCH_DEFAULT_MAX_DELAY));
+        this.runtime = new PluginRuntime(ServiceLoader.load(PluginFactory.class), this.catalog,
+                new AnyTypeRegistry(), executors, batchWindow,
+                Integer.getInteger(BrokerConstants.Properties.STATS_SAMPLE_PERIOD,
+                        BrokerConstants.STATS_DEFAULT_SAMPLE_PERIOD));
+        // warm plugins up while dubbo bootstraps
+        final var preloaded = this.runtime.preload(
+                ExecutorFactory.Managed.newVirtualThreadExecutor(BrokerConstants.PRELOAD_EXECUTOR_GROUP));
+        // priority lanes, weights indexed by priority number
+        final var weights = new int[Priority.values().length - 1]; // but UNRECOGNIZED
+        weights[Priority.PRIORITY_INTERACTIVE_VALUE] = Integer.getInteger(
+                BrokerConstants.Properties.LANE_INTERACTIVE_WEIGHT, BrokerConstants.LANE_DEFAULT_INTERACTIVE_WEIGHT);
+        weights[Priority.PRIORITY_BACKGROUND_VALUE] = Integer.getInteger(
+                BrokerConstants.Properties.LANE_BACKGROUND_WEIGHT, BrokerConstants.LANE_DEFAULT_BACKGROUND_WEIGHT);
+        // background jobs never take the slots reserved for interactive invocations
+        final var concurrency = Math.max(1, Integer.getInteger(BrokerConstants.Properties.LANE_CONCURRENCY,
+                BrokerConstants.LANE_DEFAULT_CONCURRENCY));
+        final var limits = new int[weights.length];
+        limits[Priority.PRIORITY_INTERACTIVE_VALUE] = concurrency;
+        limits[Priority.PRIORITY_BACKGROUND_VALUE] = concurrency
+                - Integer.getInteger(BrokerConstants.Properties.LANE_INTERACTIVE_RESERVED,
+                BrokerConstants.LANE_DEFAULT_INTERACTIVE_RESERVED);
+        this.lanes = new LaneScheduler(concurrency,
+                Integer.getInteger(BrokerConstants.Properties.LANE_QUEUE, BrokerConstants.LANE_DEFAULT_QUEUE),
+                weights, limits);
+        // bound what a slow consumer can make the broker buffer
+        this.backpressure = new StreamBackpressure(
+                OverflowPolicy.of(System.getProperty(BrokerConstants.Properties.STREAM_OVERFLOW,
+                        BrokerConstants.STREAM_DEFAULT_OVERFLOW)),
+                Integer.getInteger(BrokerConstants.Properties.STREAM_BUFFER_FRAMES,
+                        BrokerConstants.STREAM_DEFAULT_BUFFER_FRAMES),
+                Long.getLong(BrokerConstants.Properties.STREAM_BUFFER_BYTES,
+                        BrokerConstants.STREAM_DEFAULT_BUFFER_BYTES));
+        // payload codecs, negotiated with dispatchers on register and per invocation
+        final var compression = PayloadCompression.fromProperties();
         // build dubbo client and server
-        this.brokerDubboClient = new BrokerDubboClient(this.bootstrap, PORT_OFFSET);
-        this.brokerDubboServer = new BrokerDubboServer(this.bootstrap, this.getPort());
+        this.brokerDubboClient = new BrokerDubboClient(this.bootstrap, PORT_OFFSET, this.getPort(), this.catalog,
+                this.runtime, compression, RetryBudget.fromProperties());
+        this.brokerDubboServer = new BrokerDubboServer(this.bootstrap, this.getPort(),
+                TripleTransport.fromProperties(), this.runtime, this.lanes,
+                new FrameCoalescer(thresholds(BrokerConstants.Properties.STREAM_COALESCE_CAPABILITIES)),
+                this.backpressure, compression);
         // start broker dubbo client and server
         this.start0();
         LOGGER.info("broker dubbo server and client started successfully");
+        if (awaitPreload(preloaded)) {
+            LOGGER.info("broker plugins preloaded");
+        } else {
+            LOGGER.warn("plugins not preloaded within {} ms, register with those ready", PRELOAD_BUDGET);
+        }
+        // register to dispatchers once the server can be called back and plugins are ready
+        this.brokerDubboClient.start();
+        if (this.brokerDubboClient.awaitReady(REGISTER_BUDGET)) {
+            LOGGER.info("broker is ready, registration quorum reached");
+        } else {
+            LOGGER.warn("registration quorum not reached within {} ms, keep registering in background",
+                    REGISTER_BUDGET);
+        }
+    }
+
+    private static boolean awaitPreload(final CompletableFuture<Void> preloaded) {
+        try {
+            preloaded.get(PRELOAD_BUDGET, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /// comma separated `capability:bytes:delay` of property `key`
+    private static Map<String, FrameCoalescer.Threshold> thresholds(final String key) {
+        final var thresholds = new HashMap<String, FrameCoalescer.Threshold>();
+        for (final var item : StringUtils.tokenizeToStringArray(System.getProperty(key), ",", true, true)) {
+            final var delaySeparator = item.lastIndexOf(':');
+            final var bytesSeparator = delaySeparator <= 0 ? -1 : item.lastIndexOf(':', delaySeparator - 1);
+            if (bytesSeparator <= 0) {
+                LOGGER.warn("ignore {} entry '{}', expecting capability:bytes:delay", key, item);
+                continue;
+            }
+            thresholds.put(item.substring(0, bytesSeparator).trim(), new FrameCoalescer.Threshold(
+                    Integer.parseInt(item.substring(bytesSeparator + 1, delaySeparator).trim()),
+                    Long.parseLong(item.substring(delaySeparator + 1).trim())));
+        }
+        return thresholds;
     }
 
     public void stop() {
@@ -55,9 +185,26 @@ public class BrokerDubboWorker {
     }
 
     private void stop0() {
+        this.brokerDubboClient.close();
         this.bootstrap.stop();
     }
 
+    public PluginCatalog getCatalog() {
+        return catalog;
+    }
+
+    public PluginRuntime getRuntime() {
+        return runtime;
+    }
+
+    public LaneScheduler getLanes() {
+        return lanes;
+    }
+
+    public StreamBackpressure getBackpressure() {
+        return backpressure;
+    }
+
     public Integer getPort() {
         return EnvironmentUtils.getPort() + PORT_OFFSET;
     }
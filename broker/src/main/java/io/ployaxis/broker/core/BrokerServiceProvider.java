@@ -1,28 +1,130 @@
 package io.ployaxis.broker.core;
 
+import io.ployaxis.broker.lane.LaneScheduler;
+import io.ployaxis.broker.plugin.PluginRuntime;
+import io.ployaxis.broker.stream.FrameCoalescer;
+import io.ployaxis.broker.stream.StreamBackpressure;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
 import io.polyaxis.network.broker.BrokerInvokeReq;
 import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.broker.BrokerPingReq;
+import io.polyaxis.network.broker.BrokerPingResp;
 import io.polyaxis.network.broker.BrokerPluginSettingReq;
 import io.polyaxis.network.broker.BrokerPluginSettingResp;
 import io.polyaxis.network.broker.DubboBrokerServiceTriple;
+import io.polyaxis.network.payload.Codec;
+import io.polyaxis.network.payload.PayloadCompression;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
+import org.apache.dubbo.rpc.TriRpcStatus;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 /// Broker Service Provider.
 ///
+/// Plugin settings and capability invocations are served by the [PluginRuntime],
+/// settings are applied on virtual threads since building a plugin may block,
+/// invocations are admitted through the [LaneScheduler] of their priority, and
+/// capability streams are coalesced by the [FrameCoalescer] and bounded by
+/// [StreamBackpressure] before reaching the transport.
+///
+/// Compressed arguments and settings are restored on arrival, results large
+/// enough for the `invokeCapability` rule are compressed with a codec the
+/// caller advertised in the request's `Metadata`.
+///
 /// @author github.com/MoritzArena
 /// @date 2025/07/08
 /// @since 1.0
 public class BrokerServiceProvider
         extends DubboBrokerServiceTriple.BrokerServiceImplBase {
 
+    private static final ExecutorService SETTINGS_EXECUTOR =
+            ExecutorFactory.Managed.newVirtualThreadExecutor(BrokerConstants.SETTINGS_EXECUTOR_GROUP);
+
+    private final PluginRuntime runtime;
+
+    private final LaneScheduler lanes;
+
+    private final FrameCoalescer coalescer;
+
+    private final StreamBackpressure backpressure;
+
+    private final PayloadCompression compression;
+
+    public BrokerServiceProvider(
+            final PluginRuntime runtime,
+            final LaneScheduler lanes,
+            final FrameCoalescer coalescer,
+            final StreamBackpressure backpressure,
+            final PayloadCompression compression
+    ) {
+        this.runtime = runtime;
+        this.lanes = lanes;
+        this.coalescer = coalescer;
+        this.backpressure = backpressure;
+        this.compression = compression;
+    }
+
     @Override
     public Uni<BrokerPluginSettingResp> setPlugin(Uni<BrokerPluginSettingReq> request) {
-        return super.setPlugin(request);
+        // building a plugin may load models or open connections, keep it off the transport thread
+        return request.onItem().transformToUni(req -> Uni.createFrom().item(() -> {
+                    this.runtime.apply(req.getPluginId(), PayloadCompression.decompress(req.getSettingsMap()));
+                    return BrokerPluginSettingResp.getDefaultInstance();
+                })
+                .runSubscriptionOn(SETTINGS_EXECUTOR));
     }
 
     @Override
     public Multi<BrokerInvokeResp> invokeCapability(Uni<BrokerInvokeReq> request) {
-        return super.invokeCapability(request);
+        return request.onItem().transformToMulti(compressed -> {
+            final var arrived = System.nanoTime();
+            final BrokerInvokeReq req;
+            try {
+                req = decompress(compressed);
+            } catch (IllegalArgumentException e) {
+                return Multi.createFrom().failure(TriRpcStatus.INVALID_ARGUMENT
+                        .withDescription(e.getMessage())
+                        .asException());
+            }
+            final var scheduled = this.lanes.schedule(req.getMetadata().getPriorityValue(),
+                    () -> this.runtime.invoke(req, arrived));
+            final var coalesced = this.coalescer.coalesce(req.getCapabilityId(), scheduled);
+            final var accepted = req.getMetadata().getAcceptedCodecsList();
+            return this.backpressure.bound(accepted.isEmpty()
+                    ? coalesced
+                    : coalesced.onItem().transform(frame -> this.compress(frame, accepted)));
+        });
+    }
+
+    private static BrokerInvokeReq decompress(final BrokerInvokeReq request) {
+        if (!PayloadCompression.isCompressed(request.getArguments())) {
+            return request;
+        }
+        return request.toBuilder().setArguments(PayloadCompression.decompress(request.getArguments())).build();
+    }
+
+    private BrokerInvokeResp compress(final BrokerInvokeResp frame, final List<Codec> accepted) {
+        if (frame.getCoalescedResCount() == 0) {
+            if (!frame.hasIvkRes()) {
+                return frame;
+            }
+            final var result = this.compression.compress(PayloadCompression.INVOKE_CAPABILITY,
+                    frame.getIvkRes(), accepted);
+            return result == frame.getIvkRes() ? frame : frame.toBuilder().setIvkRes(result).build();
+        }
+        final var builder = BrokerInvokeResp.newBuilder();
+        for (final var result : frame.getCoalescedResList()) {
+            builder.addCoalescedRes(this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, result, accepted));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public Uni<BrokerPingResp> ping(Uni<BrokerPingReq> request) {
+        return request.onItem().transform(ignored -> BrokerPingResp.newBuilder()
+                .setTimestamp(System.currentTimeMillis())
+                .build());
     }
 }
@@ -0,0 +1,69 @@
+package io.ployaxis.broker.core;
+
+import io.polyaxis.network.dispatcher.DispatcherService;
+import io.polyaxis.network.payload.Codec;
+import org.apache.dubbo.config.ReferenceConfig;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/// Broker side state of one dispatcher: its consumer, the catalogue epoch it
+/// acknowledged last and the payload codecs it decodes.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/15
+/// @since 1.0
+final class DispatcherSession {
+
+    /// epoch of a dispatcher this broker is not registered with
+    static final long UNREGISTERED = -1L;
+
+    private final ReferenceConfig<DispatcherService> reference;
+
+    private final AtomicBoolean inFlight = new AtomicBoolean();
+
+    private volatile long ackedEpoch = UNREGISTERED;
+
+    private volatile List<Codec> codecs = List.of();
+
+    DispatcherSession(final ReferenceConfig<DispatcherService> reference) {
+        this.reference = reference;
+    }
+
+    ReferenceConfig<DispatcherService> getReference() {
+        return reference;
+    }
+
+    DispatcherService stub() {
+        return this.reference.get();
+    }
+
+    /// Claim the session for one register or refresh round trip.
+    boolean tryBegin() {
+        return this.inFlight.compareAndSet(false, true);
+    }
+
+    void end() {
+        this.inFlight.set(false);
+    }
+
+    long getAckedEpoch() {
+        return this.ackedEpoch;
+    }
+
+    void ack(final long epoch) {
+        this.ackedEpoch = epoch;
+    }
+
+    List<Codec> getCodecs() {
+        return this.codecs;
+    }
+
+    void setCodecs(final List<Codec> codecs) {
+        this.codecs = List.copyOf(codecs);
+    }
+
+    void reset() {
+        this.ackedEpoch = UNREGISTERED;
+    }
+}
@@ -0,0 +1,258 @@
+package io.ployaxis.broker.lane;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.broker.Priority;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.apache.dubbo.rpc.TriRpcStatus;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/// Admits capability invocations through one bounded queue per [Priority] lane.
+///
+/// At most `concurrency` invocations run at once, and at most its limit per
+/// lane: a lane limited below `concurrency` leaves the difference to the others,
+/// so a background backlog cannot hold every slot. Once a lane cannot run more,
+/// new invocations wait in its queue, a full queue rejects them with
+/// `RESOURCE_EXHAUSTED`. Every freed slot goes to the next lane by smooth
+/// weighted round robin among the lanes below their limit, so a backlog of
+/// background jobs gets its share without ever sitting in front of interactive
+/// invocations.
+///
+/// Freed slots are handed on in a loop by one thread at a time: an invocation
+/// failing right when granted releases its slot to that loop instead of
+/// granting the next one recursively.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/27
+/// @since 1.0
+@ThreadSafe
+public final class LaneScheduler {
+
+    private final int concurrency;
+
+    private final int queueCapacity;
+
+    /// indexed by [Priority#getNumber()]
+    private final Lane[] lanes;
+
+    private int running;
+
+    private int queued;
+
+    /// a thread is handing freed slots on
+    private boolean draining;
+
+    /// @param concurrency   invocations running at once
+    /// @param queueCapacity invocations waiting per lane
+    /// @param weights       weight per lane, indexed by [Priority#getNumber()]
+    /// @param limits        invocations running at once per lane, indexed by [Priority#getNumber()]
+    public LaneScheduler(final int concurrency, final int queueCapacity, final int[] weights, final int[] limits) {
+        if (weights.length != limits.length) {
+            throw new IllegalArgumentException("lane weights and limits differ in length");
+        }
+        this.concurrency = Math.max(1, concurrency);
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.lanes = new Lane[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            this.lanes[i] = new Lane(Math.max(1, weights[i]), Math.clamp(limits[i], 1, this.concurrency));
+        }
+    }
+
+    /// Run `invocation` once its lane is served.
+    ///
+    /// @param priority   lane, `Metadata.priority`, unknown values run as interactive
+    /// @param invocation starts the invocation
+    /// @return response stream
+    public Multi<BrokerInvokeResp> schedule(
+            final int priority,
+            final Supplier<Multi<BrokerInvokeResp>> invocation
+    ) {
+        final var lane = this.lanes[this.index(priority)];
+        return Uni.createFrom().<Ticket>emitter(emitter -> {
+                    final var ticket = new Ticket(lane, emitter);
+                    emitter.onTermination(() -> this.abandon(ticket));
+                    if (this.tryRun(ticket)) {
+                        this.grant(ticket);
+                    } else if (!ticket.queued) {
+                        emitter.fail(TriRpcStatus.RESOURCE_EXHAUSTED
+                                .withDescription("broker lane queue full, retry later")
+                                .asException());
+                    }
+                })
+                .onItem().transformToMulti(ticket -> this.start(ticket, invocation));
+    }
+
+    /// start the invocation `ticket` was granted for, its slot is released however it ends
+    private Multi<BrokerInvokeResp> start(final Ticket ticket, final Supplier<Multi<BrokerInvokeResp>> invocation) {
+        final Multi<BrokerInvokeResp> stream;
+        try {
+            stream = invocation.get();
+        } catch (RuntimeException e) {
+            ticket.release();
+            return Multi.createFrom().failure(e);
+        }
+        return stream.onTermination().invoke(ticket::release);
+    }
+
+    public synchronized int getRunning() {
+        return this.running;
+    }
+
+    public synchronized int getQueued() {
+        return this.queued;
+    }
+
+    /// running invocations of lane `priority`, unknown values count as interactive
+    public synchronized int getRunning(final int priority) {
+        return this.lanes[this.index(priority)].running;
+    }
+
+    /// lane index of `priority`, unknown values run as interactive
+    private int index(final int priority) {
+        return priority >= 0 && priority < this.lanes.length ? priority : 0;
+    }
+
+    /// take a slot right away or queue `ticket`, `true` if it may run
+    private synchronized boolean tryRun(final Ticket ticket) {
+        final var lane = ticket.lane;
+        // waiting lanes below their limit are served by the drain first
+        if (this.running < this.concurrency && lane.running < lane.limit && !this.hasEligible()) {
+            this.running++;
+            lane.running++;
+            return true;
+        }
+        if (lane.queue.size() < this.queueCapacity) {
+            ticket.queued = true;
+            lane.queue.addLast(ticket);
+            this.queued++;
+        }
+        return false;
+    }
+
+    /// hand `ticket` its slot, given back at once if its caller left meanwhile
+    private void grant(final Ticket ticket) {
+        ticket.emitter.complete(ticket);
+        if (ticket.emitter.isCancelled()) {
+            ticket.release();
+        }
+    }
+
+    private void abandon(final Ticket ticket) {
+        synchronized (this) {
+            if (ticket.queued && ticket.lane.queue.remove(ticket)) {
+                ticket.queued = false;
+                this.queued--;
+            }
+        }
+    }
+
+    private void onRelease(final Lane lane) {
+        synchronized (this) {
+            this.running--;
+            lane.running--;
+            if (this.draining) {
+                // the draining thread hands this slot on as well
+                return;
+            }
+            this.draining = true;
+        }
+        this.drain();
+    }
+
+    /// grant queued tickets while slots are free, releases meanwhile are picked up by the loop
+    private void drain() {
+        while (true) {
+            final Ticket next;
+            synchronized (this) {
+                next = this.running < this.concurrency ? this.next() : null;
+                if (next == null) {
+                    this.draining = false;
+                    return;
+                }
+                next.queued = false;
+                this.queued--;
+                this.running++;
+                next.lane.running++;
+            }
+            this.grant(next);
+        }
+    }
+
+    /// whether a lane below its limit has tickets waiting
+    private boolean hasEligible() {
+        for (final var lane : this.lanes) {
+            if (!lane.queue.isEmpty() && lane.running < lane.limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /// next queued ticket by smooth weighted round robin over waiting lanes below their limit
+    private Ticket next() {
+        Lane best = null;
+        int weights = 0;
+        for (final var lane : this.lanes) {
+            if (lane.queue.isEmpty() || lane.running >= lane.limit) {
+                continue;
+            }
+            lane.current += lane.weight;
+            weights += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        best.current -= weights;
+        return best.queue.pollFirst();
+    }
+
+    private static final class Lane {
+
+        private final int weight;
+
+        private final int limit;
+
+        private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+
+        /// smooth weighted round robin credit
+        private int current;
+
+        private int running;
+
+        private Lane(final int weight, final int limit) {
+            this.weight = weight;
+            this.limit = limit;
+        }
+    }
+
+    private final class Ticket {
+
+        private final Lane lane;
+
+        private final UniEmitter<? super Ticket> emitter;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /// guarded by the scheduler
+        private boolean queued;
+
+        private Ticket(final Lane lane, final UniEmitter<? super Ticket> emitter) {
+            this.lane = lane;
+            this.emitter = emitter;
+        }
+
+        private void release() {
+            if (this.released.compareAndSet(false, true)) {
+                LaneScheduler.this.onRelease(this.lane);
+            }
+        }
+    }
+}
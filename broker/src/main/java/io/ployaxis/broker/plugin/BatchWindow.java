@@ -0,0 +1,16 @@
+package io.ployaxis.broker.plugin;
+
+/// How long and how large a batch of [MicroBatcher] may grow before it is flushed.
+///
+/// @param maxSize  requests per batch
+/// @param maxDelay time the first request of a batch waits for others (ms)
+/// @author github.com/MoritzArena
+/// @date 2025/07/23
+/// @since 1.0
+public record BatchWindow(int maxSize, long maxDelay) {
+
+    public BatchWindow {
+        maxSize = Math.max(1, maxSize);
+        maxDelay = Math.max(0L, maxDelay);
+    }
+}
@@ -0,0 +1,88 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/// A configured plugin instance, immutable once built by its [PluginFactory].
+///
+/// Reconfiguring a plugin builds a new instance, the previous one keeps serving
+/// the invocations it already accepted and is closed once they all terminated.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/20
+/// @since 1.0
+public interface BrokerPlugin {
+
+    /// Capabilities served by this instance.
+    ///
+    /// @return capability id -> descriptor advertised to dispatchers
+    Map<String, Any> capabilities();
+
+    /// Invoke one of [#capabilities()].
+    ///
+    /// @param request invoke request
+    /// @return response stream
+    Multi<BrokerInvokeResp> invoke(BrokerInvokeReq request);
+
+    /// Invoke one of [#capabilities()], stopping its work once `token` is cancelled.
+    ///
+    /// Plugins generating for long or calling out to models override this one,
+    /// the stream is cancelled either way but only the plugin can abort its
+    /// nested calls.
+    ///
+    /// @param request invoke request
+    /// @param token   cancelled when the caller leaves or the deadline passes
+    /// @return response stream
+    default Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq request, final CancellationToken token) {
+        return this.invoke(request);
+    }
+
+    /// Capabilities whose concurrent invocations are collected and served through
+    /// [#invokeBatch], each answers with exactly one response per request.
+    ///
+    /// @return subset of [#capabilities()], empty by default
+    default Set<String> batchCapabilities() {
+        return Set.of();
+    }
+
+    /// Invoke one of [#batchCapabilities()] for several requests at once.
+    ///
+    /// @param capabilityId capability id shared by all `requests`
+    /// @param requests     invoke requests
+    /// @return one response per request, in request order
+    default Uni<List<BrokerInvokeResp>> invokeBatch(final String capabilityId, final List<BrokerInvokeReq> requests) {
+        return Uni.createFrom().failure(new UnsupportedOperationException(capabilityId + " is not batched"));
+    }
+
+    /// Invoke one of [#batchCapabilities()] for several requests at once,
+    /// stopping its work once `token` is cancelled.
+    ///
+    /// @param capabilityId capability id shared by all `requests`
+    /// @param requests     invoke requests
+    /// @param token        cancelled once every caller of the batch left, its deadline is the latest of theirs
+    /// @return one response per request, in request order
+    default Uni<List<BrokerInvokeResp>> invokeBatch(
+            final String capabilityId,
+            final List<BrokerInvokeReq> requests,
+            final CancellationToken token
+    ) {
+        return this.invokeBatch(capabilityId, requests);
+    }
+
+    /// Where invocations of this instance run, [ExecutionMode#EVENT_LOOP] unless
+    /// the plugin blocks.
+    default ExecutionMode executionMode() {
+        return ExecutionMode.EVENT_LOOP;
+    }
+
+    /// Release resources, called once no invocation uses this instance anymore.
+    default void close() {
+    }
+}
@@ -0,0 +1,132 @@
+package io.ployaxis.broker.plugin;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/// Deadline and cancellation of one capability invocation, handed to the plugin.
+///
+/// The deadline is the caller's remaining timeout counted from the request's
+/// arrival on this broker's monotonic clock, so clock skew between hosts never
+/// shortens or extends it. The token is cancelled when the caller cancels the
+/// stream or its deadline passed. Plugins poll [#isCancelled()] between steps, and register in
+/// [#onCancel(Runnable)] whatever aborts their nested outbound calls (an HTTP
+/// request, a model call). Plugins run off the event loop are also interrupted.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/26
+/// @since 1.0
+@ThreadSafe
+public final class CancellationToken {
+
+    private static final Logger LOGGER = LoggerScope.PLUGIN;
+
+    /// [System#nanoTime()] the request arrived at
+    private final long arrivedNanos;
+
+    /// nanos the caller waits from arrival on, `0` for no deadline
+    private final long timeoutNanos;
+
+    private final List<Runnable> callbacks = new ArrayList<>(2);
+
+    /// thread running the plugin's blocking work, interrupted on cancel
+    private Thread worker;
+
+    private volatile boolean cancelled;
+
+    /// @param timeoutMillis caller's remaining timeout when sending, `0` for none
+    /// @param arrivedNanos  [System#nanoTime()] the request arrived at
+    CancellationToken(final long timeoutMillis, final long arrivedNanos) {
+        this.arrivedNanos = arrivedNanos;
+        this.timeoutNanos = timeoutMillis <= 0L ? 0L : TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /// @throws CancellationException if cancelled
+    public void throwIfCancelled() {
+        if (this.cancelled) {
+            throw new CancellationException("invocation cancelled");
+        }
+    }
+
+    /// Run `callback` once cancelled, right away if already cancelled.
+    ///
+    /// @param callback aborts the plugin's work
+    public void onCancel(final Runnable callback) {
+        synchronized (this) {
+            if (!this.cancelled) {
+                this.callbacks.add(callback);
+                return;
+            }
+        }
+        run(callback);
+    }
+
+    /// @return `true` if results are only wanted until a deadline
+    public boolean hasDeadline() {
+        return this.timeoutNanos > 0L;
+    }
+
+    /// @return nanos left before the deadline, [Long#MAX_VALUE] for none
+    public long remainingNanos() {
+        return this.timeoutNanos <= 0L
+                ? Long.MAX_VALUE
+                : this.timeoutNanos - (System.nanoTime() - this.arrivedNanos);
+    }
+
+    /// @return millis left before the deadline, [Long#MAX_VALUE] for none
+    public long remainingMillis() {
+        return this.timeoutNanos <= 0L ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(this.remainingNanos());
+    }
+
+    void cancel() {
+        final List<Runnable> toRun;
+        synchronized (this) {
+            if (this.cancelled) {
+                return;
+            }
+            this.cancelled = true;
+            if (this.worker != null) {
+                this.worker.interrupt();
+            }
+            toRun = List.copyOf(this.callbacks);
+            this.callbacks.clear();
+        }
+        toRun.forEach(CancellationToken::run);
+    }
+
+    /// Run `task` on the current thread, interruptible by [#cancel()].
+    void runInterruptibly(final Runnable task) {
+        synchronized (this) {
+            if (this.cancelled) {
+                return;
+            }
+            this.worker = Thread.currentThread();
+        }
+        try {
+            task.run();
+        } finally {
+            synchronized (this) {
+                this.worker = null;
+                // do not leak our interrupt to the next task of a pooled thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static void run(final Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            LOGGER.warn("cancellation callback failed", e);
+        }
+    }
+}
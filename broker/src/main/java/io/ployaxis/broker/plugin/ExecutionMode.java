@@ -0,0 +1,44 @@
+package io.ployaxis.broker.plugin;
+
+/// Where a plugin's invocations run, declared by [BrokerPlugin#executionMode()] and
+/// overridden per plugin with `broker.execution.mode.<plugin id>`.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/22
+/// @since 1.0
+public enum ExecutionMode {
+
+    /// on the calling transport thread, for plugins that never block
+    EVENT_LOOP("event-loop"),
+
+    /// on a virtual thread per invocation, for plugins calling blocking SDKs
+    VIRTUAL_THREAD("virtual-thread"),
+
+    /// on the bounded platform pool, for blocking plugins that pin their carrier
+    /// thread (native calls, `synchronized` around I/O)
+    PLATFORM_POOL("platform-pool"),
+    ;
+
+    private final String key;
+
+    ExecutionMode(final String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /// Resolve mode by key, e.g. `virtual-thread`.
+    ///
+    /// @param key mode key
+    /// @return mode
+    public static ExecutionMode of(final String key) {
+        for (final var mode : values()) {
+            if (mode.key.equalsIgnoreCase(key)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("unknown execution mode: " + key);
+    }
+}
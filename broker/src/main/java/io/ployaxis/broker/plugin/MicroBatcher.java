@@ -0,0 +1,256 @@
+package io.ployaxis.broker.plugin;
+
+import io.ployaxis.broker.core.BrokerConstants;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Collects concurrent invocations of one batch capability into batches for
+/// [BrokerPlugin#invokeBatch], then hands each caller its own response.
+///
+/// A batch is flushed once it holds [BatchWindow#maxSize()] requests or its
+/// first request waited [BatchWindow#maxDelay()], whichever comes first, so
+/// batching never delays an invocation by more than the window. A caller
+/// cancelling before its batch is flushed leaves the batch.
+///
+/// A flushed batch runs with its own [CancellationToken]: its deadline is the
+/// latest of its callers', it is cancelled once every caller left. A plugin
+/// answering with no list, or a list of another size, fails every caller with
+/// `INTERNAL` instead of leaving them waiting for their deadline.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/23
+/// @since 1.0
+@ThreadSafe
+final class MicroBatcher {
+
+    private static final Logger LOGGER = LoggerScope.PLUGIN;
+
+    private static final ScheduledExecutorService FLUSH_EXECUTOR =
+            ExecutorFactory.Managed.newSingleScheduledExecutorService(BrokerConstants.BATCH_EXECUTOR_GROUP,
+                    new NamedThreadFactory(BrokerConstants.BATCH_EXECUTOR_GROUP));
+
+    private final String capabilityId;
+
+    private final BrokerPlugin plugin;
+
+    private final ExecutionMode mode;
+
+    private final PluginExecutors executors;
+
+    private final PluginStats stats;
+
+    private final BatchWindow window;
+
+    private final Object lock = new Object();
+
+    private List<Pending> pending = new ArrayList<>();
+
+    private ScheduledFuture<?> flushTask;
+
+    MicroBatcher(
+            final String capabilityId,
+            final BrokerPlugin plugin,
+            final ExecutionMode mode,
+            final PluginExecutors executors,
+            final PluginStats stats,
+            final BatchWindow window
+    ) {
+        this.capabilityId = capabilityId;
+        this.plugin = plugin;
+        this.mode = mode;
+        this.executors = executors;
+        this.stats = stats;
+        this.window = window;
+    }
+
+    /// Response to `request`, once the batch it joined completed.
+    ///
+    /// @param request invoke request
+    /// @param token   token of the invocation, bounds the deadline of its batch
+    /// @return response
+    Uni<BrokerInvokeResp> submit(final BrokerInvokeReq request, final CancellationToken token) {
+        return Uni.createFrom().emitter(emitter -> {
+            final var item = new Pending(request, token, emitter);
+            emitter.onTermination(() -> this.leave(item));
+            List<Pending> full = null;
+            synchronized (this.lock) {
+                this.pending.add(item);
+                if (this.pending.size() >= this.window.maxSize()) {
+                    full = this.drain();
+                } else if (this.pending.size() == 1) {
+                    this.flushTask = FLUSH_EXECUTOR.schedule(this::flushDue, this.window.maxDelay(),
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+            if (full != null) {
+                this.dispatch(full);
+            }
+        });
+    }
+
+    private void flushDue() {
+        final List<Pending> batch;
+        synchronized (this.lock) {
+            batch = this.pending.isEmpty() ? null : this.drain();
+        }
+        if (batch != null) {
+            this.dispatch(batch);
+        }
+    }
+
+    /// leave the pending batch, or the flushed one `item` is waiting for
+    private void leave(final Pending item) {
+        final Batch batch;
+        synchronized (this.lock) {
+            if (this.pending.removeIf(candidate -> candidate == item)) {
+                if (this.pending.isEmpty() && this.flushTask != null) {
+                    // nobody left to flush, the next request schedules its own window
+                    this.flushTask.cancel(false);
+                    this.flushTask = null;
+                }
+                return;
+            }
+            item.left = true;
+            batch = item.batch;
+        }
+        if (batch != null) {
+            batch.leave();
+        }
+    }
+
+    /// take the pending batch, call with the lock held
+    private List<Pending> drain() {
+        final var batch = this.pending;
+        this.pending = new ArrayList<>();
+        if (this.flushTask != null) {
+            this.flushTask.cancel(false);
+            this.flushTask = null;
+        }
+        return batch;
+    }
+
+    private void dispatch(final List<Pending> batch) {
+        final var requests = new ArrayList<BrokerInvokeReq>(batch.size());
+        var timeoutNanos = 0L;
+        for (final var item : batch) {
+            requests.add(item.request);
+            final var remaining = item.token.remainingNanos();
+            // one caller without a deadline leaves the batch without one
+            timeoutNanos = timeoutNanos == Long.MAX_VALUE || remaining == Long.MAX_VALUE
+                    ? Long.MAX_VALUE
+                    : Math.max(timeoutNanos, remaining);
+        }
+        final var token = new CancellationToken(timeoutNanos == Long.MAX_VALUE
+                ? 0L
+                : Math.max(TimeUnit.NANOSECONDS.toMillis(timeoutNanos), 1L), System.nanoTime());
+        final var flushed = new Batch(token, batch.size());
+        var left = 0;
+        synchronized (this.lock) {
+            for (final var item : batch) {
+                item.batch = flushed;
+                if (item.left) {
+                    // left between the flush and now, not counted out yet
+                    left++;
+                }
+            }
+        }
+        for (int i = 0; i < left; i++) {
+            flushed.leave();
+        }
+        this.executors.run(this.mode, token, this.stats,
+                        () -> this.plugin.invokeBatch(this.capabilityId, requests, token).toMulti())
+                .subscribe().with(
+                        responses -> {
+                            flushed.answered = true;
+                            this.demultiplex(batch, responses);
+                        },
+                        failure -> {
+                            flushed.answered = true;
+                            batch.forEach(item -> item.emitter.fail(failure));
+                        },
+                        () -> {
+                            if (!flushed.answered) {
+                                this.demultiplex(batch, null);
+                            }
+                        });
+    }
+
+    /// answer every caller of `batch`, `responses` is `null` if the plugin answered nothing
+    private void demultiplex(final List<Pending> batch, final List<BrokerInvokeResp> responses) {
+        if (responses == null || responses.size() != batch.size()) {
+            LOGGER.error("plugin returned {} responses to a batch of {} {} invocations",
+                    responses == null ? "no" : responses.size(), batch.size(), this.capabilityId);
+            final var failure = TriRpcStatus.INTERNAL
+                    .withDescription("batch of " + this.capabilityId
+                            + " answered with missing or mismatched responses")
+                    .asException();
+            batch.forEach(item -> item.emitter.fail(failure));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).emitter.complete(responses.get(i));
+        }
+    }
+
+    private static final class Pending {
+
+        private final BrokerInvokeReq request;
+
+        private final CancellationToken token;
+
+        private final UniEmitter<? super BrokerInvokeResp> emitter;
+
+        /// flushed batch it waits for, guarded by the batcher's lock
+        private Batch batch;
+
+        /// the caller terminated after the flush, guarded by the batcher's lock
+        private boolean left;
+
+        private Pending(
+                final BrokerInvokeReq request,
+                final CancellationToken token,
+                final UniEmitter<? super BrokerInvokeResp> emitter
+        ) {
+            this.request = request;
+            this.token = token;
+            this.emitter = emitter;
+        }
+    }
+
+    /// one flushed batch, its token is cancelled once every caller left unanswered
+    private static final class Batch {
+
+        private final CancellationToken token;
+
+        private final AtomicInteger waiting;
+
+        /// the plugin answered, callers terminating afterwards do not leave
+        private volatile boolean answered;
+
+        private Batch(final CancellationToken token, final int size) {
+            this.token = token;
+            this.waiting = new AtomicInteger(size);
+        }
+
+        private void leave() {
+            if (this.waiting.decrementAndGet() == 0 && !this.answered) {
+                this.token.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Epoch-versioned catalogue of the plugins this broker exposes, keyed by capability id.
+///
+/// Every change bumps the epoch and stamps the touched entry, removals leave a
+/// tombstone. That is enough to compute the delta between any recent epoch a
+/// dispatcher acknowledged and the current one, so refreshes only carry what
+/// changed. Tombstones are bounded, a dispatcher lagging behind the oldest one
+/// gets the full catalogue instead.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/15
+/// @since 1.0
+@ThreadSafe
+public final class PluginCatalog {
+
+    private static final int MAX_TOMBSTONES = 1024;
+
+    /// capability id -> descriptor and the epoch it was last changed at
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /// removed capability id -> epoch it was removed at, in epoch order
+    private final LinkedHashMap<String, Long> tombstones = new LinkedHashMap<>();
+
+    private long epoch;
+
+    /// oldest epoch a delta can still be computed from
+    private long floorEpoch;
+
+    /// Add or change the descriptor of `capabilityId`.
+    ///
+    /// @param capabilityId capability id
+    /// @param descriptor   plugin descriptor
+    /// @return `true` if the catalogue changed
+    public synchronized boolean put(final String capabilityId, final Any descriptor) {
+        final var current = this.entries.get(capabilityId);
+        if (current != null && current.descriptor.equals(descriptor)) {
+            return false;
+        }
+        this.epoch++;
+        this.entries.put(capabilityId, new Entry(descriptor, this.epoch));
+        this.tombstones.remove(capabilityId);
+        return true;
+    }
+
+    /// Remove `capabilityId`.
+    ///
+    /// @param capabilityId capability id
+    /// @return `true` if the catalogue changed
+    public synchronized boolean remove(final String capabilityId) {
+        if (this.entries.remove(capabilityId) == null) {
+            return false;
+        }
+        this.epoch++;
+        this.tombstones.put(capabilityId, this.epoch);
+        if (this.tombstones.size() > MAX_TOMBSTONES) {
+            final var oldest = this.tombstones.entrySet().iterator().next();
+            this.floorEpoch = oldest.getValue();
+            this.tombstones.remove(oldest.getKey());
+        }
+        return true;
+    }
+
+    public synchronized long getEpoch() {
+        return this.epoch;
+    }
+
+    /// Full catalogue at the current epoch.
+    public synchronized Delta full() {
+        final var plugins = new HashMap<String, Any>(this.entries.size());
+        for (final var entry : this.entries.entrySet()) {
+            plugins.put(entry.getKey(), entry.getValue().descriptor);
+        }
+        return new Delta(true, 0L, this.epoch, plugins, List.of());
+    }
+
+    /// Changes between `baseEpoch` and the current epoch.
+    ///
+    /// @param baseEpoch epoch acknowledged by the dispatcher
+    /// @return delta, `null` if it cannot be computed anymore
+    public synchronized Delta since(final long baseEpoch) {
+        if (baseEpoch < this.floorEpoch || baseEpoch > this.epoch) {
+            return null;
+        }
+        if (baseEpoch == this.epoch) {
+            return new Delta(false, baseEpoch, this.epoch, Map.of(), List.of());
+        }
+        final var upserted = new HashMap<String, Any>();
+        for (final var entry : this.entries.entrySet()) {
+            if (entry.getValue().epoch > baseEpoch) {
+                upserted.put(entry.getKey(), entry.getValue().descriptor);
+            }
+        }
+        final var removed = new ArrayList<String>();
+        for (final var entry : this.tombstones.entrySet()) {
+            if (entry.getValue() > baseEpoch) {
+                removed.add(entry.getKey());
+            }
+        }
+        return new Delta(false, baseEpoch, this.epoch, upserted, removed);
+    }
+
+    private record Entry(Any descriptor, long epoch) {
+    }
+
+    /// Catalogue changes between two epochs, or the full catalogue.
+    public static final class Delta {
+
+        private final boolean full;
+
+        private final long baseEpoch;
+
+        private final long epoch;
+
+        private final Map<String, Any> upserted;
+
+        private final List<String> removed;
+
+        Delta(
+                final boolean full,
+                final long baseEpoch,
+                final long epoch,
+                final Map<String, Any> upserted,
+                final List<String> removed
+        ) {
+            this.full = full;
+            this.baseEpoch = baseEpoch;
+            this.epoch = epoch;
+            this.upserted = Collections.unmodifiableMap(upserted);
+            this.removed = Collections.unmodifiableList(removed);
+        }
+
+        /// `upserted` is the whole catalogue
+        public boolean isFull() {
+            return full;
+        }
+
+        public long getBaseEpoch() {
+            return baseEpoch;
+        }
+
+        public long getEpoch() {
+            return epoch;
+        }
+
+        public Map<String, Any> getUpserted() {
+            return upserted;
+        }
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package io.ployaxis.broker.plugin;
+
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.smallrye.mutiny.Multi;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/// Runs plugin invocations according to their [ExecutionMode].
+///
+/// Off the event loop, both the call to [BrokerPlugin#invoke] and every demand
+/// on the resulting stream run on the mode's executor, so a plugin may block
+/// while producing its responses, they are bridged back into the returned
+/// [Multi] as they come.
+///
+/// The wrappers measuring the plugin's work are plain classes holding their
+/// state in fields: one object per task or stream, measuring itself allocates
+/// nothing.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/22
+/// @since 1.0
+@ThreadSafe
+public final class PluginExecutors {
+
+    private final ExecutorService virtualThreads;
+
+    private final ExecutorService platformPool;
+
+    /// @param virtualGroup  thread pool group of the virtual thread executor
+    /// @param platformGroup thread pool group of the platform pool
+    /// @param platformSize  threads of the platform pool
+    public PluginExecutors(final String virtualGroup, final String platformGroup, final int platformSize) {
+        this.virtualThreads = ExecutorFactory.Managed.newVirtualThreadExecutor(virtualGroup);
+        this.platformPool = ExecutorFactory.Managed.newFixedExecutorService(platformGroup,
+                Math.max(1, platformSize), new NamedThreadFactory(platformGroup));
+    }
+
+    /// Stream of `invocation`, run in `mode`.
+    ///
+    /// @param mode       execution mode
+    /// @param invocation calls the plugin
+    /// @param <T>        item type
+    /// @return response stream
+    <T> Multi<T> run(final ExecutionMode mode, final Supplier<Multi<T>> invocation) {
+        return this.run(mode, null, null, invocation);
+    }
+
+    /// Stream of `invocation`, run in `mode`, its blocking work interrupted once
+    /// `token` is cancelled and measured in `stats`.
+    ///
+    /// On the event loop the plugin works when the stream is subscribed and on
+    /// each request for items, those calls are measured. Off it every task the
+    /// plugin's stream runs on the executor is.
+    ///
+    /// @param mode       execution mode
+    /// @param token      cancellation token, `null` for none
+    /// @param stats      plugin stats, `null` for none
+    /// @param invocation calls the plugin
+    /// @param <T>        item type
+    /// @return response stream
+    <T> Multi<T> run(
+            final ExecutionMode mode,
+            final CancellationToken token,
+            final PluginStats stats,
+            final Supplier<Multi<T>> invocation
+    ) {
+        return switch (mode) {
+            case EVENT_LOOP -> stats == null
+                    ? Multi.createFrom().deferred(invocation)
+                    : Multi.createFrom().publisher(new Measured<>(Multi.createFrom().deferred(invocation), stats));
+            case VIRTUAL_THREAD -> Multi.createFrom().deferred(invocation)
+                    .runSubscriptionOn(dispatch(this.virtualThreads, token, stats));
+            case PLATFORM_POOL -> Multi.createFrom().deferred(invocation)
+                    .runSubscriptionOn(dispatch(this.platformPool, token, stats));
+        };
+    }
+
+    private static Executor dispatch(
+            final ExecutorService executor,
+            final CancellationToken token,
+            final PluginStats stats
+    ) {
+        return token == null && stats == null ? executor : new Dispatch(executor, token, stats);
+    }
+
+    /// runs each task on `executor`, interruptible by `token` and measured in `stats`
+    private record Dispatch(ExecutorService executor, CancellationToken token, PluginStats stats)
+            implements Executor {
+
+        @Override
+        public void execute(final Runnable command) {
+            this.executor.execute(new Task(command, this.token, this.stats));
+        }
+    }
+
+    /// one task of a plugin's stream, a class rather than nested lambdas: one allocation per task
+    private record Task(Runnable command, CancellationToken token, PluginStats stats) implements Runnable {
+
+        @Override
+        public void run() {
+            if (this.stats == null || !this.stats.sample()) {
+                this.runCommand();
+                return;
+            }
+            final var cpu = PluginStats.cpuNanos();
+            final var allocated = PluginStats.allocatedBytes();
+            try {
+                this.runCommand();
+            } finally {
+                this.stats.record(cpu, allocated);
+            }
+        }
+
+        private void runCommand() {
+            if (this.token == null) {
+                this.command.run();
+            } else {
+                this.token.runInterruptibly(this.command);
+            }
+        }
+    }
+
+    /// `upstream` measuring the subscription and every request, where an event loop plugin produces its items
+    private record Measured<T>(Multi<T> upstream, PluginStats stats) implements Flow.Publisher<T> {
+
+        @Override
+        public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+            final var measured = new MeasuredSubscriber<T>(subscriber, this.stats);
+            if (!this.stats.sample()) {
+                this.upstream.subscribe(measured);
+                return;
+            }
+            final var cpu = PluginStats.cpuNanos();
+            final var allocated = PluginStats.allocatedBytes();
+            try {
+                this.upstream.subscribe(measured);
+            } finally {
+                this.stats.record(cpu, allocated);
+            }
+        }
+    }
+
+    private static final class MeasuredSubscriber<T> implements Flow.Subscriber<T>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> downstream;
+
+        private final PluginStats stats;
+
+        private Flow.Subscription upstream;
+
+        private MeasuredSubscriber(final Flow.Subscriber<? super T> downstream, final PluginStats stats) {
+            this.downstream = downstream;
+            this.stats = stats;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.upstream = subscription;
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final T item) {
+            this.downstream.onNext(item);
+        }
+
+        @Override
+        public void onError(final Throwable failure) {
+            this.downstream.onError(failure);
+        }
+
+        @Override
+        public void onComplete() {
+            this.downstream.onComplete();
+        }
+
+        @Override
+        public void request(final long n) {
+            // requests are serialized, the plugin produces synchronously requested items in here
+            if (!this.stats.sample()) {
+                this.upstream.request(n);
+                return;
+            }
+            final var cpu = PluginStats.cpuNanos();
+            final var allocated = PluginStats.allocatedBytes();
+            try {
+                this.upstream.request(n);
+            } finally {
+                this.stats.record(cpu, allocated);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            this.upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.type.AnyType;
+import io.polyaxis.network.type.AnyTypeRegistry;
+
+import java.util.Map;
+
+/// Builds [BrokerPlugin] instances from settings, discovered through [java.util.ServiceLoader].
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/20
+/// @since 1.0
+public interface PluginFactory {
+
+    /// plugin id matched against `BrokerPluginSettingReq.plugin_id`
+    String getPluginId();
+
+    /// Register the message types this plugin packs into or unpacks from `Any`,
+    /// called once when the broker loads the factory. Keep the returned [AnyType]s
+    /// to unpack arguments and settings without type URL comparisons.
+    ///
+    /// @param types broker type registry
+    default void registerTypes(final AnyTypeRegistry types) {
+    }
+
+    /// Warm up what every instance shares (model clients, connection pools,
+    /// caches), called once at broker startup, concurrently with the other
+    /// factories and the Dubbo bootstrap. The broker registers to dispatchers
+    /// only once every factory returned.
+    default void preload() {
+    }
+
+    /// Settings to install an instance with at startup, right after [#preload()],
+    /// so its capabilities are advertised in the first registration.
+    ///
+    /// @return initial settings, `null` to wait for `setPlugin`
+    default Map<String, Any> initialSettings() {
+        return null;
+    }
+
+    /// Build a new instance from `settings`, may be slow (loading models,
+    /// opening connections), it runs off the invocation path.
+    ///
+    /// @param settings plugin settings
+    /// @return configured plugin
+    BrokerPlugin create(Map<String, Any> settings);
+}
@@ -0,0 +1,115 @@
+package io.ployaxis.broker.plugin;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// A [BrokerPlugin] installed in a [PluginSnapshot], counting the invocations using it.
+///
+/// Retiring a handle stops new leases, the plugin is closed by whichever of
+/// [#retire()] or the last [#release()] comes last.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/20
+/// @since 1.0
+@ThreadSafe
+final class PluginHandle {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    /// lease count bit marking a retired handle
+    private static final int RETIRED = 1 << 30;
+
+    private final String pluginId;
+
+    private final long generation;
+
+    private final BrokerPlugin plugin;
+
+    private final ExecutionMode mode;
+
+    /// shared by every instance of the plugin id
+    private final PluginStats stats;
+
+    /// batch capability id -> batcher
+    private final Map<String, MicroBatcher> batchers;
+
+    private final AtomicInteger leases = new AtomicInteger();
+
+    PluginHandle(
+            final String pluginId,
+            final long generation,
+            final BrokerPlugin plugin,
+            final ExecutionMode mode,
+            final PluginStats stats,
+            final Map<String, MicroBatcher> batchers
+    ) {
+        this.pluginId = pluginId;
+        this.generation = generation;
+        this.plugin = plugin;
+        this.mode = mode;
+        this.stats = stats;
+        this.batchers = Map.copyOf(batchers);
+    }
+
+    /// @return `false` if retired meanwhile, the caller should re-read the snapshot
+    boolean retain() {
+        while (true) {
+            final var current = this.leases.get();
+            if ((current & RETIRED) != 0) {
+                return false;
+            }
+            if (this.leases.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (this.leases.decrementAndGet() == RETIRED) {
+            this.close();
+        }
+    }
+
+    void retire() {
+        if (this.leases.addAndGet(RETIRED) == RETIRED) {
+            this.close();
+        }
+    }
+
+    String getPluginId() {
+        return pluginId;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    BrokerPlugin getPlugin() {
+        return plugin;
+    }
+
+    ExecutionMode getMode() {
+        return mode;
+    }
+
+    PluginStats getStats() {
+        return stats;
+    }
+
+    /// batcher of `capabilityId`, `null` if it is not batched
+    MicroBatcher batcher(final String capabilityId) {
+        return this.batchers.get(capabilityId);
+    }
+
+    private void close() {
+        try {
+            this.plugin.close();
+        } catch (Exception e) {
+            LOGGER.error("close plugin {} generation {} failed!", this.pluginId, this.generation, e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.ployaxis.broker.core.BrokerConstants;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.dispatcher.PluginLoad;
+import io.polyaxis.network.type.AnyTypeRegistry;
+import io.smallrye.mutiny.Multi;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Runs the broker's plugins and hot-swaps them on new settings.
+///
+/// Applying settings builds a new plugin instance outside any lock, then installs
+/// it by swapping the volatile [PluginSnapshot]. The invoke path is a volatile
+/// read plus a lease on the plugin it resolved: invocations already running keep
+/// the previous instance until they terminate, new ones see the new instance,
+/// and the previous instance is closed once its last invocation left.
+///
+/// Each invocation runs in its plugin's [ExecutionMode] through [PluginExecutors],
+/// so blocking plugins never hold the transport's event loop. Invocations of batch
+/// capabilities are collected by a [MicroBatcher] per capability instead.
+///
+/// Every invocation gets a [CancellationToken] whose deadline is the timeout of
+/// its metadata counted from the request's arrival: cancelling the stream or
+/// passing the deadline cancels it, and a stream still running at its deadline
+/// fails with `DEADLINE_EXCEEDED`.
+///
+/// Every plugin id has [PluginStats] (CPU time, allocated bytes, in-flight
+/// invocations, queue latency) reported to dispatchers with each refresh.
+///
+/// Installed capabilities are mirrored to the [PluginCatalog], the next heartbeat
+/// advertises them to dispatchers.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/20
+/// @since 1.0
+@ThreadSafe
+public final class PluginRuntime {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    /// plugin id -> factory
+    private final Map<String, PluginFactory> factories;
+
+    private final PluginCatalog catalog;
+
+    private final AnyTypeRegistry types;
+
+    private final PluginExecutors executors;
+
+    private final BatchWindow batchWindow;
+
+    /// plugin id -> stats, kept across instances
+    private final Map<String, PluginStats> stats;
+
+    private final AtomicLong generations = new AtomicLong();
+
+    private final Object writeLock = new Object();
+
+    private volatile PluginSnapshot snapshot = PluginSnapshot.EMPTY;
+
+    public PluginRuntime(
+            final Iterable<PluginFactory> factories,
+            final PluginCatalog catalog,
+            final AnyTypeRegistry types,
+            final PluginExecutors executors,
+            final BatchWindow batchWindow,
+            final int statsSamplePeriod
+    ) {
+        final var byId = new HashMap<String, PluginFactory>();
+        for (final var factory : factories) {
+            final var previous = byId.put(factory.getPluginId(), factory);
+            if (previous != null) {
+                LOGGER.warn("plugin factory {} of {} shadowed by {}", factory.getPluginId(),
+                        previous.getClass().getName(), factory.getClass().getName());
+            }
+            factory.registerTypes(types);
+        }
+        this.factories = Map.copyOf(byId);
+        final var statsById = new HashMap<String, PluginStats>();
+        for (final var pluginId : this.factories.keySet()) {
+            statsById.put(pluginId, new PluginStats(statsSamplePeriod));
+        }
+        this.stats = Map.copyOf(statsById);
+        this.catalog = catalog;
+        this.types = types;
+        this.executors = executors;
+        this.batchWindow = batchWindow;
+    }
+
+    /// Preload every factory concurrently on `executor`, then install the ones
+    /// with initial settings. A failing factory is logged and skipped, it does
+    /// not hold the others back.
+    ///
+    /// @param executor runs the preloads, they may block
+    /// @return completed once every factory is preloaded
+    public CompletableFuture<Void> preload(final Executor executor) {
+        final var preloads = new ArrayList<CompletableFuture<Void>>(this.factories.size());
+        for (final var factory : this.factories.values()) {
+            preloads.add(CompletableFuture.runAsync(() -> this.preload(factory), executor));
+        }
+        return CompletableFuture.allOf(preloads.toArray(CompletableFuture[]::new));
+    }
+
+    private void preload(final PluginFactory factory) {
+        final var start = System.nanoTime();
+        try {
+            factory.preload();
+            final var settings = factory.initialSettings();
+            if (settings != null) {
+                this.apply(factory.getPluginId(), settings);
+            }
+            LOGGER.info("plugin {} preloaded in {} ms", factory.getPluginId(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            LOGGER.error("preload plugin {} failed!", factory.getPluginId(), e);
+        }
+    }
+
+    /// Build `pluginId` from `settings` and swap it in.
+    ///
+    /// @param pluginId plugin id
+    /// @param settings plugin settings
+    public void apply(final String pluginId, final Map<String, Any> settings) {
+        final var factory = this.factories.get(pluginId);
+        if (factory == null) {
+            throw TriRpcStatus.NOT_FOUND.withDescription("unknown plugin " + pluginId).asException();
+        }
+        // stamp before building, a slower build of older settings must not win
+        final var generation = this.generations.incrementAndGet();
+        final var override = this.executionOverride(pluginId);
+        final var plugin = factory.create(settings);
+        final var mode = override == null ? plugin.executionMode() : override;
+        final var batchers = new HashMap<String, MicroBatcher>();
+        for (final var capabilityId : plugin.batchCapabilities()) {
+            batchers.put(capabilityId, new MicroBatcher(capabilityId, plugin, mode, this.executors,
+                    this.stats.get(pluginId), this.batchWindow));
+        }
+        final var handle = new PluginHandle(pluginId, generation, plugin, mode, this.stats.get(pluginId), batchers);
+        final PluginHandle previous;
+        synchronized (this.writeLock) {
+            final var current = this.snapshot;
+            previous = current.get(pluginId);
+            if (previous != null && previous.getGeneration() > generation) {
+                LOGGER.info("plugin {} generation {} superseded by {}, discard it",
+                        pluginId, generation, previous.getGeneration());
+                handle.retire();
+                return;
+            }
+            this.snapshot = current.with(handle);
+            this.publish(previous, handle);
+        }
+        if (previous != null) {
+            previous.retire();
+        }
+        LOGGER.info("plugin {} generation {} installed in {} mode with capabilities {}",
+                pluginId, generation, handle.getMode().getKey(), plugin.capabilities().keySet());
+    }
+
+    /// Invoke `request.capability_id` on the plugin currently serving it.
+    ///
+    /// @param request invoke request
+    /// @return response stream
+    public Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq request) {
+        return this.invoke(request, System.nanoTime());
+    }
+
+    /// Invoke `request.capability_id` on the plugin currently serving it.
+    ///
+    /// @param request      invoke request
+    /// @param arrivedNanos [System#nanoTime()] the request arrived at, for its deadline and queue latency
+    /// @return response stream
+    public Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq request, final long arrivedNanos) {
+        return Multi.createFrom().deferred(() -> {
+            final var token = new CancellationToken(request.getMetadata().getTimeoutMillis(), arrivedNanos);
+            if (token.remainingNanos() <= 0L) {
+                // the caller gave up already, do not start generating
+                return Multi.createFrom().failure(deadlineExceeded(request));
+            }
+            final var handle = this.lease(request.getCapabilityId());
+            if (handle == null) {
+                return Multi.createFrom().failure(TriRpcStatus.NOT_FOUND
+                        .withDescription("capability " + request.getCapabilityId() + " not served by this broker")
+                        .asException());
+            }
+            final var stats = handle.getStats();
+            stats.onStart();
+            final var batcher = handle.batcher(request.getCapabilityId());
+            final Multi<BrokerInvokeResp> stream;
+            if (batcher != null) {
+                stats.onQueued(System.nanoTime() - arrivedNanos);
+                stream = batcher.submit(request, token).toMulti();
+            } else {
+                // a plugin throwing instead of failing its stream is a failure too, released alike
+                stream = this.executors.run(handle.getMode(), token, stats, () -> {
+                    stats.onQueued(System.nanoTime() - arrivedNanos);
+                    return handle.getPlugin().invoke(request, token);
+                });
+            }
+            return this.withDeadline(request, token, stream.onCancellation().invoke(token::cancel))
+                    .onTermination().invoke(() -> {
+                        stats.onFinish();
+                        handle.release();
+                    });
+        });
+    }
+
+    /// Resource usage of every plugin, for refresh payloads.
+    ///
+    /// @return plugin id -> load
+    public Map<String, PluginLoad> loads() {
+        final var loads = new HashMap<String, PluginLoad>(this.stats.size());
+        this.stats.forEach((pluginId, item) -> loads.put(pluginId, item.toLoad()));
+        return loads;
+    }
+
+    /// cut `stream` at the deadline of `token`, failing it with `DEADLINE_EXCEEDED`
+    private Multi<BrokerInvokeResp> withDeadline(
+            final BrokerInvokeReq request,
+            final CancellationToken token,
+            final Multi<BrokerInvokeResp> stream
+    ) {
+        if (!token.hasDeadline()) {
+            return stream;
+        }
+        final var completed = new AtomicBoolean();
+        // select cancels the stream at the deadline, which cancels the token
+        return stream
+                .onCompletion().invoke(() -> completed.set(true))
+                .select().first(Duration.ofNanos(Math.max(token.remainingNanos(), 1L)))
+                .onCompletion().switchTo(() -> completed.get()
+                        ? Multi.createFrom().empty()
+                        : Multi.createFrom().failure(deadlineExceeded(request)));
+    }
+
+    private static Throwable deadlineExceeded(final BrokerInvokeReq request) {
+        return TriRpcStatus.DEADLINE_EXCEEDED
+                .withDescription("capability " + request.getCapabilityId() + " passed its deadline")
+                .asException();
+    }
+
+    /// `broker.execution.mode.<plugin id>`, `null` to keep the mode the plugin declares
+    private ExecutionMode executionOverride(final String pluginId) {
+        final var override = System.getProperty(BrokerConstants.Properties.EXECUTION_MODE + pluginId);
+        return override == null ? null : ExecutionMode.of(override);
+    }
+
+    public AnyTypeRegistry getTypes() {
+        return types;
+    }
+
+    /// leased handle serving `capabilityId`, `null` if none
+    private PluginHandle lease(final String capabilityId) {
+        while (true) {
+            final var handle = this.snapshot.route(capabilityId);
+            if (handle == null || handle.retain()) {
+                return handle;
+            }
+            // swapped between the read and the lease, the new snapshot is already visible
+        }
+    }
+
+    /// mirror capability changes of `pluginId` to the catalogue
+    private void publish(final PluginHandle previous, final PluginHandle handle) {
+        final var capabilities = handle.getPlugin().capabilities();
+        if (previous != null) {
+            for (final var capabilityId : previous.getPlugin().capabilities().keySet()) {
+                if (!capabilities.containsKey(capabilityId)) {
+                    this.catalog.remove(capabilityId);
+                }
+            }
+        }
+        capabilities.forEach(this.catalog::put);
+    }
+}
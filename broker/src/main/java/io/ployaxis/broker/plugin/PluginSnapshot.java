@@ -0,0 +1,51 @@
+package io.ployaxis.broker.plugin;
+
+import io.polyaxis.api.utils.documentation.Immutable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/// Immutable view of the installed plugins, swapped as a whole on every change.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/20
+/// @since 1.0
+@Immutable
+final class PluginSnapshot {
+
+    static final PluginSnapshot EMPTY = new PluginSnapshot(Map.of(), Map.of());
+
+    /// plugin id -> handle
+    private final Map<String, PluginHandle> plugins;
+
+    /// capability id -> handle serving it
+    private final Map<String, PluginHandle> routes;
+
+    private PluginSnapshot(final Map<String, PluginHandle> plugins, final Map<String, PluginHandle> routes) {
+        this.plugins = plugins;
+        this.routes = routes;
+    }
+
+    PluginHandle route(final String capabilityId) {
+        return this.routes.get(capabilityId);
+    }
+
+    PluginHandle get(final String pluginId) {
+        return this.plugins.get(pluginId);
+    }
+
+    /// Copy with `handle` installed in place of the handle of the same plugin id.
+    PluginSnapshot with(final PluginHandle handle) {
+        final var newPlugins = new HashMap<>(this.plugins);
+        final var previous = newPlugins.put(handle.getPluginId(), handle);
+        final var newRoutes = new HashMap<>(this.routes);
+        if (previous != null) {
+            newRoutes.values().removeIf(item -> item == previous);
+        }
+        for (final var capabilityId : handle.getPlugin().capabilities().keySet()) {
+            newRoutes.put(capabilityId, handle);
+        }
+        return new PluginSnapshot(Collections.unmodifiableMap(newPlugins), Collections.unmodifiableMap(newRoutes));
+    }
+}
@@ -0,0 +1,101 @@
+package io.ployaxis.broker.plugin;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.dispatcher.PluginLoad;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Resource usage of one plugin id, across every instance it had.
+///
+/// Counters are striped [LongAdder]s, recording allocates nothing. CPU time and
+/// allocated bytes are read from the [com.sun.management.ThreadMXBean] around
+/// one in `samplePeriod` pieces of the plugin's work (see [PluginExecutors]),
+/// scaled back up by the period: callers check [#sample()] and read the thread
+/// counters before the work, then [#record(long, long)] after it, without
+/// wrapping the work in a lambda. Work the JVM cannot measure (e.g. on virtual
+/// threads, where thread CPU time is unsupported) is left out. The dispatcher
+/// weighs brokers by the reported in-flight count and queue time.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/28
+/// @since 1.0
+@ThreadSafe
+public final class PluginStats {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isCurrentThreadCpuTimeSupported() ? threads : null;
+
+    private final int samplePeriod;
+
+    private final LongAdder cpuNanos = new LongAdder();
+
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final LongAdder inFlight = new LongAdder();
+
+    private final LongAdder invocations = new LongAdder();
+
+    private final LongAdder queueNanos = new LongAdder();
+
+    /// @param samplePeriod one in `samplePeriod` calls is measured, `0` disables measuring
+    PluginStats(final int samplePeriod) {
+        this.samplePeriod = THREADS == null ? 0 : Math.max(0, samplePeriod);
+    }
+
+    /// invocation leased the plugin
+    void onStart() {
+        this.invocations.increment();
+        this.inFlight.increment();
+    }
+
+    /// invocation terminated
+    void onFinish() {
+        this.inFlight.decrement();
+    }
+
+    /// invocation reached the plugin `queuedNanos` after it arrived
+    void onQueued(final long queuedNanos) {
+        this.queueNanos.add(Math.max(0L, queuedNanos));
+    }
+
+    /// `true` if the work about to run is measured, one in `samplePeriod` times
+    boolean sample() {
+        return this.samplePeriod != 0
+                && (this.samplePeriod == 1 || ThreadLocalRandom.current().nextInt(this.samplePeriod) == 0);
+    }
+
+    /// Record the work run on the current thread since [#cpuNanos()] and
+    /// [#allocatedBytes()] read `cpuStart` and `allocatedStart`, after [#sample()].
+    void record(final long cpuStart, final long allocatedStart) {
+        if (cpuStart >= 0L) {
+            this.cpuNanos.add((THREADS.getCurrentThreadCpuTime() - cpuStart) * this.samplePeriod);
+        }
+        if (allocatedStart >= 0L) {
+            this.allocatedBytes.add((THREADS.getCurrentThreadAllocatedBytes() - allocatedStart) * this.samplePeriod);
+        }
+    }
+
+    /// CPU time of the current thread, only after [#sample()] returned `true`
+    static long cpuNanos() {
+        return THREADS.getCurrentThreadCpuTime();
+    }
+
+    /// bytes allocated by the current thread, only after [#sample()] returned `true`
+    static long allocatedBytes() {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /// snapshot for refresh payloads
+    PluginLoad toLoad() {
+        return PluginLoad.newBuilder()
+                .setCpuNanos(this.cpuNanos.sum())
+                .setAllocatedBytes(this.allocatedBytes.sum())
+                .setInFlight((int) Math.max(0L, this.inFlight.sum()))
+                .setInvocations(this.invocations.sum())
+                .setQueueNanos(this.queueNanos.sum())
+                .build();
+    }
+}
@@ -0,0 +1,316 @@
+package io.ployaxis.broker.stream;
+
+import io.ployaxis.broker.core.BrokerConstants;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/// Merges consecutive small frames of a capability stream into one
+/// `BrokerInvokeResp.coalesced_res` frame, for plugins emitting a frame per token.
+///
+/// The first frame of a stream goes out at once, so coalescing never delays the
+/// time to first token. Later frames are held until they add up to the
+/// capability's byte threshold or the first of them waited its max delay,
+/// whichever comes first, then flushed as one frame. A lone frame is flushed
+/// unchanged. Coalescing honors demand: no frame is requested from the plugin
+/// while a full merge waits for the consumer.
+///
+/// Frames are emitted outside the stream's lock. The shared timer only marks a
+/// merge due, the flush runs on the Vert.x context the stream was subscribed on
+/// (Mutiny's default executor without one), never on the timer thread.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/24
+/// @since 1.0
+@ThreadSafe
+public final class FrameCoalescer {
+
+    private static final ScheduledExecutorService FLUSH_EXECUTOR =
+            ExecutorFactory.Managed.newSingleScheduledExecutorService(BrokerConstants.COALESCE_EXECUTOR_GROUP,
+                    new NamedThreadFactory(BrokerConstants.COALESCE_EXECUTOR_GROUP));
+
+    /// capability id -> flush thresholds
+    private final Map<String, Threshold> thresholds;
+
+    /// @param thresholds capability id -> flush thresholds
+    public FrameCoalescer(final Map<String, Threshold> thresholds) {
+        this.thresholds = Map.copyOf(thresholds);
+    }
+
+    public boolean isCoalesced(final String capabilityId) {
+        return this.thresholds.containsKey(capabilityId);
+    }
+
+    /// Coalesce `upstream` if `capabilityId` is configured, otherwise return it as is.
+    ///
+    /// @param capabilityId capability id
+    /// @param upstream     plugin response stream
+    /// @return coalesced stream
+    public Multi<BrokerInvokeResp> coalesce(final String capabilityId, final Multi<BrokerInvokeResp> upstream) {
+        final var threshold = this.thresholds.get(capabilityId);
+        if (threshold == null) {
+            return upstream;
+        }
+        return Multi.createFrom().publisher(subscriber ->
+                upstream.subscribe(new Merge(subscriber, threshold, context())));
+    }
+
+    /// Flush thresholds of one capability.
+    ///
+    /// @param maxBytes serialized bytes held before flushing
+    /// @param maxDelay time the first held frame waits before flushing (ms)
+    public record Threshold(int maxBytes, long maxDelay) {
+
+        public Threshold {
+            maxBytes = Math.max(1, maxBytes);
+            maxDelay = Math.max(0L, maxDelay);
+        }
+    }
+
+    /// Executor of the subscribing thread's Vert.x context, so flushes run where
+    /// the stream runs. Mutiny's default executor where there is none.
+    private static Executor context() {
+        final var context = Vertx.currentContext();
+        if (context == null) {
+            return Infrastructure.getDefaultExecutor();
+        }
+        return task -> context.runOnContext(ignored -> task.run());
+    }
+
+    /// One coalesced stream. Signals update its state under its monitor, one
+    /// thread at a time runs the drain loop and calls downstream and upstream
+    /// with the monitor released.
+    private static final class Merge implements Flow.Subscriber<BrokerInvokeResp>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super BrokerInvokeResp> downstream;
+
+        private final Threshold threshold;
+
+        /// runs flushes fired by the timer
+        private final Executor context;
+
+        private final List<BrokerInvokeResp> held = new ArrayList<>();
+
+        private Flow.Subscription upstream;
+
+        private ScheduledFuture<?> flushTask;
+
+        /// bumped on every flush, a timer of an already flushed merge is stale
+        private long merges;
+
+        private long demand;
+
+        private int heldBytes;
+
+        /// one frame requested from upstream and not received yet
+        private boolean requested;
+
+        /// the first frame went out, only later ones are held
+        private boolean emitted;
+
+        /// the first held frame waited its max delay
+        private boolean due;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        private boolean cancelled;
+
+        /// a thread runs the drain loop, signals meanwhile only update state
+        private boolean draining;
+
+        private Merge(
+                final Flow.Subscriber<? super BrokerInvokeResp> downstream,
+                final Threshold threshold,
+                final Executor context
+        ) {
+            this.downstream = downstream;
+            this.threshold = threshold;
+            this.context = context;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            synchronized (this) {
+                this.upstream = subscription;
+            }
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final BrokerInvokeResp item) {
+            synchronized (this) {
+                if (this.done || this.cancelled) {
+                    return;
+                }
+                this.requested = false;
+                this.held.add(item);
+                this.heldBytes += item.getSerializedSize();
+                if (this.emitted && this.held.size() == 1 && this.heldBytes < this.threshold.maxBytes()) {
+                    final var merge = this.merges;
+                    this.flushTask = FLUSH_EXECUTOR.schedule(() -> this.onDue(merge), this.threshold.maxDelay(),
+                            TimeUnit.MILLISECONDS);
+                }
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                this.failure = throwable;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            synchronized (this) {
+                if (n <= 0L) {
+                    // fail after what is held, upstream is not wanted anymore
+                    this.done = true;
+                    this.failure = new IllegalArgumentException("non-positive request " + n);
+                    this.held.clear();
+                    this.heldBytes = 0;
+                } else {
+                    this.demand = this.demand + n < 0L ? Long.MAX_VALUE : this.demand + n;
+                }
+            }
+            if (n <= 0L) {
+                this.upstream.cancel();
+            }
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+                this.cancelled = true;
+                this.reset();
+            }
+            this.upstream.cancel();
+        }
+
+        /// runs on the timer thread, the flush itself on the stream's context
+        private void onDue(final long merge) {
+            synchronized (this) {
+                if (merge != this.merges || this.cancelled) {
+                    return;
+                }
+                this.due = true;
+            }
+            this.context.execute(this::drain);
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (this.draining) {
+                    // the running loop re-reads the state this signal changed
+                    return;
+                }
+                this.draining = true;
+            }
+            while (true) {
+                BrokerInvokeResp frame = null;
+                boolean request = false;
+                boolean terminate = false;
+                Throwable error = null;
+                // decide under the monitor, act outside of it
+                synchronized (this) {
+                    if (this.cancelled) {
+                        this.draining = false;
+                        return;
+                    }
+                    if (!this.held.isEmpty() && this.demand > 0L && (!this.emitted || this.due || this.done
+                            || this.heldBytes >= this.threshold.maxBytes())) {
+                        frame = this.merge();
+                        this.demand--;
+                        this.emitted = true;
+                        this.reset();
+                    } else if (this.done && this.held.isEmpty()) {
+                        this.cancelled = true;
+                        terminate = true;
+                        error = this.failure;
+                    } else if (!this.done && !this.requested && this.heldBytes < this.threshold.maxBytes()
+                            && (this.demand > 0L || !this.held.isEmpty())) {
+                        // keep merging while the consumer has demand or a merge is under way
+                        this.requested = true;
+                        request = true;
+                    } else {
+                        this.draining = false;
+                        return;
+                    }
+                }
+                if (frame != null) {
+                    this.downstream.onNext(frame);
+                } else if (request) {
+                    this.upstream.request(1L);
+                } else if (terminate) {
+                    if (error != null) {
+                        this.downstream.onError(error);
+                    } else {
+                        this.downstream.onComplete();
+                    }
+                    return;
+                }
+            }
+        }
+
+        private BrokerInvokeResp merge() {
+            if (this.held.size() == 1) {
+                return this.held.getFirst();
+            }
+            final var builder = BrokerInvokeResp.newBuilder();
+            for (final var frame : this.held) {
+                if (frame.hasIvkRes()) {
+                    builder.addCoalescedRes(frame.getIvkRes());
+                }
+                builder.addAllCoalescedRes(frame.getCoalescedResList());
+            }
+            return builder.build();
+        }
+
+        private void reset() {
+            this.merges++;
+            this.held.clear();
+            this.heldBytes = 0;
+            this.due = false;
+            if (this.flushTask != null) {
+                this.flushTask.cancel(false);
+                this.flushTask = null;
+            }
+        }
+    }
+}
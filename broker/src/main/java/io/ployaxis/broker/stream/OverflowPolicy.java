@@ -0,0 +1,47 @@
+package io.ployaxis.broker.stream;
+
+/// What a capability stream does once its consumer stops keeping up, chosen with
+/// `broker.stream.overflow`.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/21
+/// @since 1.0
+public enum OverflowPolicy {
+
+    /// relay downstream demand to the plugin within the stream's bounds, a
+    /// demand-aware producer pauses until the consumer asks for more, a producer
+    /// emitting past demand beyond the bounds fails the stream with
+    /// `RESOURCE_EXHAUSTED`
+    PAUSE("pause"),
+
+    /// frames produced while the consumer has no demand are dropped
+    DROP("drop"),
+
+    /// frames are buffered up to the stream's bounds, the stream fails with
+    /// `RESOURCE_EXHAUSTED` once they are exceeded
+    FAIL("fail"),
+    ;
+
+    private final String key;
+
+    OverflowPolicy(final String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /// Resolve policy by key, e.g. `pause`.
+    ///
+    /// @param key policy key
+    /// @return policy
+    public static OverflowPolicy of(final String key) {
+        for (final var policy : values()) {
+            if (policy.key.equalsIgnoreCase(key)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("unknown overflow policy: " + key);
+    }
+}
@@ -0,0 +1,338 @@
+package io.ployaxis.broker.stream;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.subscription.BackPressureFailure;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Bounds what a capability stream may hold on the broker between the plugin
+/// producing it and the triple stream consuming it.
+///
+/// Every stream gets at most `broker.stream.buffer.frames` frames and
+/// `broker.stream.buffer.bytes` serialized bytes of buffer, what happens past
+/// that is the [OverflowPolicy]. Without it a slow dispatcher or HTTP client
+/// lets one broker hold an entire generation in memory.
+///
+/// Under [OverflowPolicy#PAUSE] demand is relayed to the producer in chunks of at
+/// most the frame bound, and none is relayed while the stream holds its byte
+/// bound. Frames a producer emits past that demand are held within both bounds,
+/// beyond them the stream fails like under [OverflowPolicy#FAIL].
+///
+/// Buffered bytes, open streams and overflows are tracked across all streams.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/21
+/// @since 1.0
+@ThreadSafe
+public final class StreamBackpressure {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    private final OverflowPolicy policy;
+
+    private final int maxFrames;
+
+    private final long maxBytes;
+
+    /// serialized bytes produced by plugins and not yet taken by the triple streams
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    private final AtomicLong openStreams = new AtomicLong();
+
+    /// frames dropped or streams failed for overflowing
+    private final LongAdder overflows = new LongAdder();
+
+    /// @param policy    overflow policy
+    /// @param maxFrames frames buffered per stream
+    /// @param maxBytes  serialized bytes buffered per stream
+    public StreamBackpressure(final OverflowPolicy policy, final int maxFrames, final long maxBytes) {
+        this.policy = policy;
+        this.maxFrames = Math.max(1, maxFrames);
+        this.maxBytes = Math.max(1L, maxBytes);
+    }
+
+    /// Bound `upstream` to this policy.
+    ///
+    /// @param upstream plugin response stream
+    /// @return stream handed to the triple transport
+    public Multi<BrokerInvokeResp> bound(final Multi<BrokerInvokeResp> upstream) {
+        return Multi.createFrom().deferred(() -> {
+            final var buffer = new StreamBuffer();
+            this.openStreams.incrementAndGet();
+            final var bounded = switch (this.policy) {
+                // demand is handed to the producer in chunks of at most maxFrames, within maxBytes
+                case PAUSE -> Multi.createFrom().<BrokerInvokeResp>publisher(subscriber ->
+                        upstream.subscribe(new Pause(subscriber, buffer)));
+                case DROP -> upstream
+                        .onItem().invoke(buffer::enqueue)
+                        .onOverflow().invoke(buffer::drop).drop()
+                        .onItem().invoke(buffer::dequeue);
+                case FAIL -> upstream
+                        .onItem().invoke(buffer::enqueue)
+                        .onOverflow().buffer(this.maxFrames)
+                        .onItem().invoke(buffer::dequeue)
+                        .onFailure(BackPressureFailure.class).transform(this::exhausted);
+            };
+            return bounded.onTermination().invoke(buffer::close);
+        });
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    public long getBufferedBytes() {
+        return this.bufferedBytes.get();
+    }
+
+    public long getOpenStreams() {
+        return this.openStreams.get();
+    }
+
+    public long getOverflows() {
+        return this.overflows.sum();
+    }
+
+    private Throwable exhausted(final Throwable cause) {
+        this.overflows.increment();
+        LOGGER.warn("capability stream overflowed its buffer of {} frames / {} bytes, fail it",
+                this.maxFrames, this.maxBytes);
+        return TriRpcStatus.RESOURCE_EXHAUSTED
+                .withDescription("consumer too slow, stream buffer exhausted")
+                .withCause(cause)
+                .asException();
+    }
+
+    /// bytes held by one stream, enqueued on the producer side and dequeued on the consumer side
+    private final class StreamBuffer {
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private void enqueue(final BrokerInvokeResp response) {
+            final var size = response.getSerializedSize();
+            final var held = this.bytes.addAndGet(size);
+            StreamBackpressure.this.bufferedBytes.addAndGet(size);
+            if (held > StreamBackpressure.this.maxBytes && StreamBackpressure.this.policy == OverflowPolicy.FAIL) {
+                throw new BackPressureFailure("stream buffer exceeded " + StreamBackpressure.this.maxBytes + " bytes");
+            }
+        }
+
+        private long held() {
+            return this.bytes.get();
+        }
+
+        private void dequeue(final BrokerInvokeResp response) {
+            this.release(response.getSerializedSize());
+        }
+
+        private void drop(final BrokerInvokeResp response) {
+            StreamBackpressure.this.overflows.increment();
+            this.dequeue(response);
+        }
+
+        private void close() {
+            // cancelled or failed with frames still buffered
+            this.release(Long.MAX_VALUE);
+            StreamBackpressure.this.openStreams.decrementAndGet();
+        }
+
+        /// never below zero, a frame taken after the stream closed was already released
+        private void release(final long size) {
+            while (true) {
+                final var current = this.bytes.get();
+                final var taken = Math.min(current, size);
+                if (this.bytes.compareAndSet(current, current - taken)) {
+                    StreamBackpressure.this.bufferedBytes.addAndGet(-taken);
+                    return;
+                }
+            }
+        }
+    }
+
+    /// [OverflowPolicy#PAUSE] of one stream. Signals update its state under its
+    /// monitor, one thread at a time runs the drain loop and calls downstream and
+    /// upstream with the monitor released.
+    private final class Pause implements Flow.Subscriber<BrokerInvokeResp>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super BrokerInvokeResp> downstream;
+
+        private final StreamBuffer buffer;
+
+        private final ArrayDeque<BrokerInvokeResp> queue = new ArrayDeque<>();
+
+        private Flow.Subscription upstream;
+
+        /// requested by the consumer, not delivered yet
+        private long demand;
+
+        /// requested from the producer, not received yet
+        private long outstanding;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        private boolean cancelled;
+
+        /// a thread runs the drain loop, signals meanwhile only update state
+        private boolean draining;
+
+        private Pause(final Flow.Subscriber<? super BrokerInvokeResp> downstream, final StreamBuffer buffer) {
+            this.downstream = downstream;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            synchronized (this) {
+                this.upstream = subscription;
+            }
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(final BrokerInvokeResp item) {
+            final boolean overflow;
+            synchronized (this) {
+                if (this.done || this.cancelled) {
+                    return;
+                }
+                this.outstanding = Math.max(0L, this.outstanding - 1L);
+                this.queue.addLast(item);
+                this.buffer.enqueue(item);
+                overflow = this.queue.size() > StreamBackpressure.this.maxFrames
+                        || this.buffer.held() > StreamBackpressure.this.maxBytes;
+                if (overflow) {
+                    // the producer ignores demand, pausing it is not possible
+                    this.done = true;
+                    this.failure = StreamBackpressure.this.exhausted(new BackPressureFailure(
+                            "producer emitted past demand beyond the stream buffer"));
+                    this.clear();
+                }
+            }
+            if (overflow) {
+                this.upstream.cancel();
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                this.failure = throwable;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void request(final long n) {
+            synchronized (this) {
+                if (n <= 0L) {
+                    this.done = true;
+                    this.failure = new IllegalArgumentException("non-positive request " + n);
+                    this.clear();
+                } else {
+                    this.demand = this.demand + n < 0L ? Long.MAX_VALUE : this.demand + n;
+                }
+            }
+            if (n <= 0L) {
+                this.upstream.cancel();
+            }
+            this.drain();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+                this.cancelled = true;
+                this.clear();
+            }
+            this.upstream.cancel();
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (this.draining) {
+                    // the running loop re-reads the state this signal changed
+                    return;
+                }
+                this.draining = true;
+            }
+            while (true) {
+                BrokerInvokeResp item = null;
+                long request = 0L;
+                boolean terminate = false;
+                Throwable error = null;
+                // decide under the monitor, act outside of it
+                synchronized (this) {
+                    if (this.cancelled) {
+                        this.draining = false;
+                        return;
+                    }
+                    if (!this.queue.isEmpty() && this.demand > 0L) {
+                        item = this.queue.pollFirst();
+                        this.demand--;
+                        this.buffer.dequeue(item);
+                    } else if (this.done && this.queue.isEmpty()) {
+                        this.cancelled = true;
+                        terminate = true;
+                        error = this.failure;
+                    } else if (!this.done && this.buffer.held() < StreamBackpressure.this.maxBytes
+                            && (request = Math.min(this.demand, StreamBackpressure.this.maxFrames)
+                            - this.outstanding - this.queue.size()) > 0L) {
+                        this.outstanding += request;
+                    } else {
+                        this.draining = false;
+                        return;
+                    }
+                }
+                if (item != null) {
+                    this.downstream.onNext(item);
+                } else if (terminate) {
+                    if (error != null) {
+                        this.downstream.onError(error);
+                    } else {
+                        this.downstream.onComplete();
+                    }
+                    return;
+                } else {
+                    this.upstream.request(request);
+                }
+            }
+        }
+
+        /// drop what is held, call with the monitor held
+        private void clear() {
+            for (final var item : this.queue) {
+                this.buffer.dequeue(item);
+            }
+            this.queue.clear();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.ployaxis.broker.lane;
+
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.broker.Priority;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/// [LaneScheduler] admission, lane limits and hand-over of freed slots.
+class LaneSchedulerTests {
+
+    private static final int INTERACTIVE = Priority.PRIORITY_INTERACTIVE_VALUE;
+
+    private static final int BACKGROUND = Priority.PRIORITY_BACKGROUND_VALUE;
+
+    /// invocations started and held open, in start order
+    private final List<MultiEmitter<? super BrokerInvokeResp>> running = new CopyOnWriteArrayList<>();
+
+    /// lane of every invocation started, in start order
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @Test
+    void queuesBeyondConcurrencyAndRejectsWhenFull() {
+        final var scheduler = new LaneScheduler(1, 1, new int[]{1, 1}, new int[]{1, 1});
+        final var first = subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("first")));
+        final var second = subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("second")));
+        final var third = subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("third")));
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(1, scheduler.getQueued());
+        assertEquals(TriRpcStatus.Code.RESOURCE_EXHAUSTED, TriRpcStatus.getStatus(third.getFailure()).code);
+
+        this.running.getFirst().complete();
+        first.assertCompleted();
+        assertEquals(List.of("first", "second"), this.started);
+        assertEquals(1, scheduler.getRunning());
+        assertEquals(0, scheduler.getQueued());
+        second.assertNotTerminated();
+    }
+
+    @Test
+    void laneLimitLeavesSlotsToOtherLanes() {
+        final var scheduler = new LaneScheduler(2, 8, new int[]{1, 1}, new int[]{2, 1});
+        subscribe(scheduler.schedule(BACKGROUND, () -> this.held("background-1")));
+        subscribe(scheduler.schedule(BACKGROUND, () -> this.held("background-2")));
+        // a global slot is free, but the background lane is at its limit
+        assertEquals(1, scheduler.getRunning(BACKGROUND));
+        assertEquals(1, scheduler.getQueued());
+
+        subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("interactive")));
+        assertEquals(1, scheduler.getRunning(INTERACTIVE));
+        assertEquals(2, scheduler.getRunning());
+
+        this.running.getFirst().complete();
+        assertEquals(List.of("background-1", "interactive", "background-2"), this.started);
+        assertEquals(1, scheduler.getRunning(BACKGROUND));
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    @Test
+    void servesLanesByWeight() {
+        final var scheduler = new LaneScheduler(1, 8, new int[]{2, 1}, new int[]{1, 1});
+        subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("blocker")));
+        for (int i = 0; i < 3; i++) {
+            subscribe(scheduler.schedule(BACKGROUND, () -> this.held("B")));
+            subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("I")));
+        }
+        for (int i = 0; i < 6; i++) {
+            this.running.get(i).complete();
+        }
+        assertEquals(List.of("blocker", "I", "B", "I", "I", "B", "B"), this.started);
+        assertEquals(1, scheduler.getRunning());
+    }
+
+    @Test
+    void drainsLongBacklogIteratively() {
+        final var backlog = 10_000;
+        final var scheduler = new LaneScheduler(1, backlog, new int[]{1, 1}, new int[]{1, 1});
+        subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("blocker")));
+        final var failing = new ArrayList<AssertSubscriber<BrokerInvokeResp>>(backlog);
+        for (int i = 0; i < backlog; i++) {
+            // fails as soon as it is granted, handing its slot straight back
+            failing.add(subscribe(scheduler.schedule(INTERACTIVE,
+                    () -> Multi.createFrom().failure(new IllegalStateException("granted")))));
+        }
+        assertEquals(backlog, scheduler.getQueued());
+
+        this.running.getFirst().complete();
+        failing.forEach(subscriber -> subscriber.assertFailedWith(IllegalStateException.class, "granted"));
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(0, scheduler.getQueued());
+    }
+
+    @Test
+    void cancelledInvocationLeavesQueue() {
+        final var scheduler = new LaneScheduler(1, 8, new int[]{1, 1}, new int[]{1, 1});
+        subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("blocker")));
+        final var waiting = subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("cancelled")));
+        assertEquals(1, scheduler.getQueued());
+
+        waiting.cancel();
+        assertEquals(0, scheduler.getQueued());
+        this.running.getFirst().complete();
+        assertEquals(List.of("blocker"), this.started);
+        assertEquals(0, scheduler.getRunning());
+    }
+
+    @Test
+    void throwingInvocationReleasesItsSlot() {
+        final var scheduler = new LaneScheduler(1, 8, new int[]{1, 1}, new int[]{1, 1});
+        final var failed = subscribe(scheduler.schedule(BACKGROUND, () -> {
+            throw new IllegalStateException("supplier");
+        }));
+        failed.assertFailedWith(IllegalStateException.class, "supplier");
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(0, scheduler.getRunning(BACKGROUND));
+
+        subscribe(scheduler.schedule(INTERACTIVE, () -> this.held("next")));
+        assertEquals(List.of("next"), this.started);
+    }
+
+    @Test
+    void unknownPriorityCountsAsInteractive() {
+        final var scheduler = new LaneScheduler(2, 8, new int[]{1, 1}, new int[]{2, 2});
+        subscribe(scheduler.schedule(42, () -> this.held("unknown")));
+        assertEquals(1, scheduler.getRunning(INTERACTIVE));
+        assertEquals(1, scheduler.getRunning(42));
+        assertEquals(1, scheduler.getRunning(-1));
+    }
+
+    /// invocation recorded as `label` and held open until its emitter completes
+    private Multi<BrokerInvokeResp> held(final String label) {
+        return Multi.createFrom().emitter(emitter -> {
+            this.started.add(label);
+            this.running.add(emitter);
+        });
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,198 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.helpers.test.UniAssertSubscriber;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [MicroBatcher] flushing, demultiplexing, malformed answers and cancellation.
+class MicroBatcherTests {
+
+    private static final String CAPABILITY = "embed";
+
+    private static final PluginExecutors EXECUTORS =
+            new PluginExecutors("test.plugin.virtual", "test.plugin.platform", 1);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    /// batches handed to the plugin
+    private final List<List<BrokerInvokeReq>> batches = new CopyOnWriteArrayList<>();
+
+    /// tokens handed to the plugin
+    private final List<CancellationToken> tokens = new CopyOnWriteArrayList<>();
+
+    @Test
+    void flushesFullBatchAndAnswersEachCaller() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L), MicroBatcherTests::echo);
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+
+        assertEquals("a", first.awaitItem(TIMEOUT).getItem().getIvkRes().getTypeUrl());
+        assertEquals("b", second.awaitItem(TIMEOUT).getItem().getIvkRes().getTypeUrl());
+        assertEquals(1, this.batches.size());
+        assertEquals(2, this.batches.getFirst().size());
+    }
+
+    @Test
+    void flushesPartialBatchAfterDelay() {
+        final var batcher = this.batcher(new BatchWindow(16, 20L), MicroBatcherTests::echo);
+        final var only = subscribe(batcher.submit(request("a"), token(0L)));
+
+        assertEquals("a", only.awaitItem(TIMEOUT).getItem().getIvkRes().getTypeUrl());
+        assertEquals(1, this.batches.getFirst().size());
+    }
+
+    @Test
+    void emptyAnswerFailsEveryCaller() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L), requests -> Uni.createFrom().nullItem());
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+
+        assertInternal(first.awaitFailure(TIMEOUT).getFailure());
+        assertInternal(second.awaitFailure(TIMEOUT).getFailure());
+    }
+
+    @Test
+    void mismatchedAnswerFailsEveryCaller() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L),
+                requests -> echo(requests.subList(0, 1)));
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+
+        assertInternal(first.awaitFailure(TIMEOUT).getFailure());
+        assertInternal(second.awaitFailure(TIMEOUT).getFailure());
+    }
+
+    @Test
+    void pluginFailureFailsEveryCaller() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L),
+                requests -> Uni.createFrom().failure(new IllegalStateException("plugin")));
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+
+        first.awaitFailure(TIMEOUT).assertFailedWith(IllegalStateException.class, "plugin");
+        second.awaitFailure(TIMEOUT).assertFailedWith(IllegalStateException.class, "plugin");
+    }
+
+    @Test
+    void cancelledCallerLeavesPendingBatch() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L), MicroBatcherTests::echo);
+        subscribe(batcher.submit(request("gone"), token(0L))).cancel();
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+
+        first.awaitItem(TIMEOUT);
+        second.awaitItem(TIMEOUT);
+        assertEquals(List.of("a", "b"), this.batches.getFirst().stream()
+                .map(request -> request.getArguments().getTypeUrl())
+                .toList());
+    }
+
+    @Test
+    void batchTokenCancelledOnceEveryCallerLeft() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L), requests -> Uni.createFrom().nothing());
+        final var first = subscribe(batcher.submit(request("a"), token(0L)));
+        final var second = subscribe(batcher.submit(request("b"), token(0L)));
+        assertEquals(1, this.tokens.size());
+        final var token = this.tokens.getFirst();
+        assertFalse(token.hasDeadline());
+
+        first.cancel();
+        assertFalse(token.isCancelled());
+        second.cancel();
+        assertTrue(token.isCancelled());
+    }
+
+    @Test
+    void batchDeadlineIsTheLatestOfItsCallers() {
+        final var batcher = this.batcher(new BatchWindow(2, 60_000L), requests -> Uni.createFrom().nothing());
+        subscribe(batcher.submit(request("a"), token(1_000L)));
+        subscribe(batcher.submit(request("b"), token(30_000L)));
+        final var token = this.tokens.getFirst();
+
+        assertTrue(token.hasDeadline());
+        assertTrue(token.remainingMillis() > 1_000L);
+        assertTrue(token.remainingMillis() <= 30_000L);
+    }
+
+    private MicroBatcher batcher(
+            final BatchWindow window,
+            final Function<List<BrokerInvokeReq>, Uni<List<BrokerInvokeResp>>> answer
+    ) {
+        final var plugin = new BrokerPlugin() {
+
+            @Override
+            public Map<String, Any> capabilities() {
+                return Map.of(CAPABILITY, Any.getDefaultInstance());
+            }
+
+            @Override
+            public Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq request) {
+                return Multi.createFrom().failure(new UnsupportedOperationException());
+            }
+
+            @Override
+            public Set<String> batchCapabilities() {
+                return Set.of(CAPABILITY);
+            }
+
+            @Override
+            public Uni<List<BrokerInvokeResp>> invokeBatch(
+                    final String capabilityId,
+                    final List<BrokerInvokeReq> requests,
+                    final CancellationToken token
+            ) {
+                MicroBatcherTests.this.batches.add(List.copyOf(requests));
+                MicroBatcherTests.this.tokens.add(token);
+                return answer.apply(requests);
+            }
+        };
+        return new MicroBatcher(CAPABILITY, plugin, ExecutionMode.EVENT_LOOP, EXECUTORS, null, window);
+    }
+
+    /// one response per request, carrying the type url of its arguments
+    private static Uni<List<BrokerInvokeResp>> echo(final List<BrokerInvokeReq> requests) {
+        final var responses = new ArrayList<BrokerInvokeResp>(requests.size());
+        for (final var request : requests) {
+            responses.add(BrokerInvokeResp.newBuilder()
+                    .setIvkRes(Any.newBuilder().setTypeUrl(request.getArguments().getTypeUrl()))
+                    .build());
+        }
+        return Uni.createFrom().item(responses);
+    }
+
+    private static BrokerInvokeReq request(final String label) {
+        return BrokerInvokeReq.newBuilder()
+                .setCapabilityId(CAPABILITY)
+                .setArguments(Any.newBuilder().setTypeUrl(label))
+                .build();
+    }
+
+    private static CancellationToken token(final long timeoutMillis) {
+        return new CancellationToken(timeoutMillis, System.nanoTime());
+    }
+
+    private static void assertInternal(final Throwable failure) {
+        assertEquals(TriRpcStatus.Code.INTERNAL, TriRpcStatus.getStatus(failure).code);
+    }
+
+    private static UniAssertSubscriber<BrokerInvokeResp> subscribe(final Uni<BrokerInvokeResp> response) {
+        return response.subscribe().withSubscriber(UniAssertSubscriber.create());
+    }
+}
@@ -0,0 +1,158 @@
+package io.ployaxis.broker.plugin;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.type.AnyTypeRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/// [PluginRuntime] snapshot swaps: leases keep the previous instance, which is
+/// closed once its last invocation left, and the catalogue follows the swap.
+class PluginRuntimeTests {
+
+    private static final String PLUGIN = "llm";
+
+    private static final PluginExecutors EXECUTORS =
+            new PluginExecutors("test.runtime.virtual", "test.runtime.platform", 1);
+
+    /// invocations started and held open, in start order
+    private final List<MultiEmitter<? super BrokerInvokeResp>> running = new CopyOnWriteArrayList<>();
+
+    /// versions of the closed instances, in close order
+    private final List<String> closed = new CopyOnWriteArrayList<>();
+
+    private final PluginCatalog catalog = new PluginCatalog();
+
+    private final PluginRuntime runtime = new PluginRuntime(List.of(new Factory()), this.catalog,
+            new AnyTypeRegistry(), EXECUTORS, new BatchWindow(1, 0L), 0);
+
+    @Test
+    void runningInvocationKeepsPreviousInstance() {
+        this.runtime.apply(PLUGIN, settings("v1", "generate"));
+        final var first = subscribe(this.runtime.invoke(request("generate")));
+
+        this.runtime.apply(PLUGIN, settings("v2", "generate"));
+        // leased by the running invocation
+        assertEquals(List.of(), this.closed);
+        final var second = subscribe(this.runtime.invoke(request("generate")));
+        this.running.get(1).complete();
+        second.assertCompleted().assertItems(response("v2"));
+
+        this.running.getFirst().complete();
+        first.assertCompleted().assertItems(response("v1"));
+        assertEquals(List.of("v1"), this.closed);
+    }
+
+    @Test
+    void idlePreviousInstanceClosedOnSwap() {
+        this.runtime.apply(PLUGIN, settings("v1", "generate"));
+        subscribe(this.runtime.invoke(request("generate"))).cancel();
+        assertEquals(List.of(), this.closed);
+
+        this.runtime.apply(PLUGIN, settings("v2", "generate"));
+        assertEquals(List.of("v1"), this.closed);
+    }
+
+    @Test
+    void catalogueFollowsSwap() {
+        this.runtime.apply(PLUGIN, settings("v1", "generate", "embed"));
+        assertEquals(Set.of("generate", "embed"), this.catalog.full().getUpserted().keySet());
+        final var epoch = this.catalog.getEpoch();
+
+        this.runtime.apply(PLUGIN, settings("v2", "embed", "rerank"));
+        final var delta = this.catalog.since(epoch);
+        assertEquals(Set.of("rerank"), delta.getUpserted().keySet());
+        assertEquals(List.of("generate"), delta.getRemoved());
+        final var removed = subscribe(this.runtime.invoke(request("generate")));
+        assertEquals(TriRpcStatus.Code.NOT_FOUND, TriRpcStatus.getStatus(removed.getFailure()).code);
+    }
+
+    @Test
+    void countsInFlightInvocations() {
+        this.runtime.apply(PLUGIN, settings("v1", "generate"));
+        subscribe(this.runtime.invoke(request("generate")));
+        subscribe(this.runtime.invoke(request("generate")));
+        assertEquals(2, this.runtime.loads().get(PLUGIN).getInFlight());
+
+        this.running.getFirst().complete();
+        assertEquals(1, this.runtime.loads().get(PLUGIN).getInFlight());
+        assertEquals(2L, this.runtime.loads().get(PLUGIN).getInvocations());
+    }
+
+    @Test
+    void unknownPluginIsRejected() {
+        final var error = assertThrows(RuntimeException.class,
+                () -> this.runtime.apply("unknown", settings("v1", "generate")));
+        assertEquals(TriRpcStatus.Code.NOT_FOUND, TriRpcStatus.getStatus(error).code);
+    }
+
+    /// settings of an instance labelled `version` serving `capabilities`
+    private static Map<String, Any> settings(final String version, final String... capabilities) {
+        return Map.of("version", Any.newBuilder().setTypeUrl(version).build(),
+                "capabilities", Any.newBuilder().setTypeUrl(String.join(",", capabilities)).build());
+    }
+
+    private static BrokerInvokeReq request(final String capabilityId) {
+        return BrokerInvokeReq.newBuilder().setCapabilityId(capabilityId).build();
+    }
+
+    private static BrokerInvokeResp response(final String version) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl(version)).build();
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    }
+
+    /// instances answering one response labelled with their version, then held open
+    private final class Factory implements PluginFactory {
+
+        @Override
+        public String getPluginId() {
+            return PLUGIN;
+        }
+
+        @Override
+        public BrokerPlugin create(final Map<String, Any> settings) {
+            final var version = settings.get("version").getTypeUrl();
+            final var capabilities = settings.get("capabilities").getTypeUrl().split(",");
+            return new BrokerPlugin() {
+
+                @Override
+                public Map<String, Any> capabilities() {
+                    final var descriptors = new HashMap<String, Any>();
+                    for (final var capabilityId : capabilities) {
+                        descriptors.put(capabilityId, Any.newBuilder().setTypeUrl(capabilityId).build());
+                    }
+                    return descriptors;
+                }
+
+                @Override
+                public Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq request) {
+                    return Multi.createFrom().emitter(emitter -> {
+                        PluginRuntimeTests.this.running.add(emitter);
+                        emitter.emit(response(version));
+                    });
+                }
+
+                @Override
+                public void close() {
+                    PluginRuntimeTests.this.closed.add(version);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package io.ployaxis.broker.stream;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [FrameCoalescer] merging by byte threshold and max delay, demand and termination.
+class FrameCoalescerTests {
+
+    private static final String CAPABILITY = "generate";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final long NEVER = Duration.ofMinutes(10).toMillis();
+
+    private static final int FRAME_BYTES = frame(0).getSerializedSize();
+
+    private final AtomicReference<MultiEmitter<? super BrokerInvokeResp>> emitter = new AtomicReference<>();
+
+    @Test
+    void uncoalescedCapabilityIsLeftAsIs() {
+        final var coalescer = coalescer(3 * FRAME_BYTES, NEVER);
+        final var upstream = frames(3);
+
+        assertTrue(coalescer.isCoalesced(CAPABILITY));
+        assertSame(upstream, coalescer.coalesce("other", upstream));
+    }
+
+    @Test
+    void mergesLaterFramesUpToByteThreshold() {
+        final var stream = subscribe(coalescer(3 * FRAME_BYTES, NEVER).coalesce(CAPABILITY, frames(6)), Long.MAX_VALUE);
+
+        stream.assertCompleted();
+        final var items = stream.getItems();
+        assertEquals(3, items.size());
+        // the first frame is never held
+        assertEquals(frame(0), items.getFirst());
+        assertEquals(List.of("frame-1", "frame-2", "frame-3"), typeUrls(items.get(1)));
+        // what is held when the stream completes is flushed
+        assertEquals(List.of("frame-4", "frame-5"), typeUrls(items.get(2)));
+    }
+
+    @Test
+    void flushesLoneFrameAfterMaxDelay() {
+        final var stream = subscribe(coalescer(1 << 20, 20L).coalesce(CAPABILITY, this.held()), Long.MAX_VALUE);
+        this.emitter.get().emit(frame(0)).emit(frame(1));
+        assertEquals(List.of(frame(0)), stream.getItems());
+
+        // flushed by the timer, unchanged
+        stream.awaitItems(2, TIMEOUT).assertItems(frame(0), frame(1));
+        stream.assertNotTerminated();
+    }
+
+    @Test
+    void requestsNothingWithoutDemand() {
+        final var requested = new AtomicLong();
+        final var upstream = frames(100).onRequest().invoke(requested::addAndGet);
+        final var stream = subscribe(coalescer(2 * FRAME_BYTES, NEVER).coalesce(CAPABILITY, upstream), 1L);
+        assertEquals(List.of(frame(0)), stream.getItems());
+        assertEquals(1L, requested.get());
+
+        stream.request(1L);
+        assertEquals(2, stream.getItems().size());
+        assertEquals(List.of("frame-1", "frame-2"), typeUrls(stream.getItems().get(1)));
+        assertEquals(3L, requested.get());
+    }
+
+    @Test
+    void flushesHeldFramesBeforeFailure() {
+        final var stream = subscribe(coalescer(1 << 20, NEVER).coalesce(CAPABILITY, this.held()), Long.MAX_VALUE);
+        this.emitter.get().emit(frame(0)).emit(frame(1)).emit(frame(2)).fail(new IllegalStateException("plugin"));
+
+        stream.assertFailedWith(IllegalStateException.class, "plugin");
+        assertEquals(2, stream.getItems().size());
+        assertEquals(List.of("frame-1", "frame-2"), typeUrls(stream.getItems().get(1)));
+    }
+
+    @Test
+    void cancellationCancelsPlugin() {
+        final var cancelled = new AtomicBoolean();
+        final var upstream = this.held().onCancellation().invoke(() -> cancelled.set(true));
+        final var stream = subscribe(coalescer(1 << 20, NEVER).coalesce(CAPABILITY, upstream), Long.MAX_VALUE);
+        this.emitter.get().emit(frame(0)).emit(frame(1));
+
+        stream.cancel();
+        assertTrue(cancelled.get());
+        assertEquals(List.of(frame(0)), stream.getItems());
+    }
+
+    /// plugin stream held open, driven through [#emitter]
+    private Multi<BrokerInvokeResp> held() {
+        return Multi.createFrom().emitter(this.emitter::set);
+    }
+
+    private static FrameCoalescer coalescer(final int maxBytes, final long maxDelay) {
+        return new FrameCoalescer(Map.of(CAPABILITY, new FrameCoalescer.Threshold(maxBytes, maxDelay)));
+    }
+
+    private static Multi<BrokerInvokeResp> frames(final int count) {
+        return Multi.createFrom().range(0, count).map(FrameCoalescerTests::frame);
+    }
+
+    private static BrokerInvokeResp frame(final int index) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl("frame-" + index)).build();
+    }
+
+    private static List<String> typeUrls(final BrokerInvokeResp merged) {
+        return merged.getCoalescedResList().stream().map(Any::getTypeUrl).toList();
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream, final long n) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(n));
+    }
+}
@@ -0,0 +1,128 @@
+package io.ployaxis.broker.stream;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [StreamBackpressure] under [OverflowPolicy#PAUSE]: demand relay, overflow of
+/// producers ignoring demand and buffer accounting.
+class StreamBackpressureTests {
+
+    private static final long FRAME_BYTES = frame(0).getSerializedSize();
+
+    /// requests the producer received, in order
+    private final List<Long> requests = new CopyOnWriteArrayList<>();
+
+    @Test
+    void relaysDemandInChunksOfFrameBound() {
+        final var backpressure = new StreamBackpressure(OverflowPolicy.PAUSE, 4, 1L << 20);
+        final var stream = subscribe(backpressure.bound(this.frames(10)), Long.MAX_VALUE);
+
+        stream.assertCompleted();
+        assertEquals(10, stream.getItems().size());
+        assertTrue(this.requests.stream().allMatch(n -> n <= 4L));
+        assertEquals(0L, backpressure.getBufferedBytes());
+        assertEquals(0L, backpressure.getOpenStreams());
+    }
+
+    @Test
+    void pausesProducerWithoutDemand() {
+        final var backpressure = new StreamBackpressure(OverflowPolicy.PAUSE, 4, 1L << 20);
+        final var stream = subscribe(backpressure.bound(this.frames(10)), 0L);
+        assertEquals(List.of(), this.requests);
+        assertEquals(1L, backpressure.getOpenStreams());
+
+        stream.request(2L);
+        assertEquals(List.of(2L), this.requests);
+        assertEquals(2, stream.getItems().size());
+        stream.assertNotTerminated();
+    }
+
+    @Test
+    void producerPastDemandBeyondFrameBoundFails() {
+        final var backpressure = new StreamBackpressure(OverflowPolicy.PAUSE, 4, 1L << 20);
+        final var cancelled = new AtomicBoolean();
+        final var stream = subscribe(backpressure.bound(ignoringDemand(10, cancelled)), 0L);
+
+        assertExhausted(stream.getFailure());
+        assertTrue(cancelled.get());
+        assertEquals(1L, backpressure.getOverflows());
+        assertEquals(0L, backpressure.getBufferedBytes());
+    }
+
+    @Test
+    void producerPastDemandBeyondByteBoundFails() {
+        final var backpressure = new StreamBackpressure(OverflowPolicy.PAUSE, 100, 2 * FRAME_BYTES);
+        final var cancelled = new AtomicBoolean();
+        final var stream = subscribe(backpressure.bound(ignoringDemand(3, cancelled)), 0L);
+
+        assertExhausted(stream.getFailure());
+        assertTrue(cancelled.get());
+        assertEquals(0L, backpressure.getBufferedBytes());
+    }
+
+    @Test
+    void cancellationReleasesHeldFrames() {
+        final var backpressure = new StreamBackpressure(OverflowPolicy.PAUSE, 4, 1L << 20);
+        final var cancelled = new AtomicBoolean();
+        final var stream = subscribe(backpressure.bound(ignoringDemand(2, cancelled)), 0L);
+        // held within both bounds
+        assertEquals(2 * FRAME_BYTES, backpressure.getBufferedBytes());
+        stream.assertNotTerminated();
+
+        stream.cancel();
+        assertTrue(cancelled.get());
+        assertEquals(0L, backpressure.getBufferedBytes());
+        assertEquals(0L, backpressure.getOpenStreams());
+    }
+
+    /// demand-aware producer of `count` frames, recording what it is asked for
+    private Multi<BrokerInvokeResp> frames(final int count) {
+        return Multi.createFrom().range(0, count)
+                .map(StreamBackpressureTests::frame)
+                .onRequest().invoke(this.requests::add);
+    }
+
+    /// producer emitting `count` frames as soon as it is subscribed, whatever the demand
+    private static Multi<BrokerInvokeResp> ignoringDemand(final int count, final AtomicBoolean cancelled) {
+        return Multi.createFrom().publisher(subscriber -> {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                @Override
+                public void request(final long n) {
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+            for (int i = 0; i < count && !cancelled.get(); i++) {
+                subscriber.onNext(frame(i));
+            }
+        });
+    }
+
+    private static BrokerInvokeResp frame(final int index) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl("frame-" + index)).build();
+    }
+
+    private static void assertExhausted(final Throwable failure) {
+        assertEquals(TriRpcStatus.Code.RESOURCE_EXHAUSTED, TriRpcStatus.getStatus(failure).code);
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream, final long n) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(n));
+    }
+}
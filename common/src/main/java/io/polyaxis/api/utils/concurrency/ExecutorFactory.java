@@ -1,5 +1,7 @@
 package io.polyaxis.api.utils.concurrency;
 
+import io.polyaxis.api.utils.misc.StringUtils;
+
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -157,6 +159,19 @@ public class ExecutorFactory {
             return executor;
         }
 
+        /**
+         * Create a new executor starting one named virtual thread per task and register to manager.
+         *
+         * @param group group name, also the thread name prefix
+         * @return new virtual thread per task executor
+         */
+        public static ExecutorService newVirtualThreadExecutor(final String group) {
+            ExecutorService executorService = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name(group + StringUtils.DOT, 0).factory());
+            THREAD_POOL_MANAGER.register(DEFAULT_NAMESPACE, group, executorService);
+            return executorService;
+        }
+
         public static ThreadPoolManager getThreadPoolManager() {
             return THREAD_POOL_MANAGER;
         }
@@ -30,9 +30,21 @@ dependencies {
     /* quarkus langchain4j */
     implementation(libs.quarkus.langchain4j.core)
     implementation(libs.quarkus.langchain4j.openai)
+    /* result cache */
+    implementation(libs.caffeine)
     /* internal projects */
     implementation(project(":common"))
     implementation(project(":network")) // for rpc negotiating
+    /* opt-in native transport, see network.dubbo.transport.native */
+    runtimeOnly(variantOf(libs.netty.epoll) { classifier("linux-x86_64") })
+    runtimeOnly(variantOf(libs.netty.epoll) { classifier("linux-aarch_64") })
+    /* test */
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 /* ⇢ add opens */
@@ -0,0 +1,36 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/// Power-of-two-choices: sample two distinct brokers at random and keep the
+/// cheaper one, which avoids both herding on a single "best" broker and the
+/// blind spots of round-robin or random picks.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public abstract class AbstractP2cSelector implements BrokerSelector {
+
+    @Override
+    public BrokerEndpoint select(final List<BrokerEndpoint> candidates, final BrokerLoadTracker loads) {
+        final var size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        final var random = ThreadLocalRandom.current();
+        final var i = random.nextInt(size);
+        var j = random.nextInt(size - 1);
+        if (j >= i) {
+            j++;
+        }
+        final var a = candidates.get(i);
+        final var b = candidates.get(j);
+        return this.cost(loads.get(a)) <= this.cost(loads.get(b)) ? a : b;
+    }
+
+    /// Cost of routing one more stream to a broker, lower is better.
+    protected abstract double cost(BrokerLoad load);
+}
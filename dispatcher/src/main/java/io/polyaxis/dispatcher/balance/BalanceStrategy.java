@@ -0,0 +1,51 @@
+package io.polyaxis.dispatcher.balance;
+
+import java.util.function.Supplier;
+
+/// Built-in [BrokerSelector]s, chosen with `dispatcher.balance.strategy`.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public enum BalanceStrategy {
+
+    /// [LeastOutstandingSelector]
+    LEAST_OUTSTANDING("least-outstanding", LeastOutstandingSelector::new),
+
+    /// [PeakEwmaSelector]
+    PEAK_EWMA("ewma", PeakEwmaSelector::new),
+
+    /// [WeightedSelector]
+    WEIGHTED("weighted", WeightedSelector::new),
+    ;
+
+    private final String key;
+
+    private final Supplier<BrokerSelector> factory;
+
+    BalanceStrategy(final String key, final Supplier<BrokerSelector> factory) {
+        this.key = key;
+        this.factory = factory;
+    }
+
+    public BrokerSelector newSelector() {
+        return this.factory.get();
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /// Resolve strategy by key, e.g. `ewma`.
+    ///
+    /// @param key strategy key
+    /// @return strategy
+    public static BalanceStrategy of(final String key) {
+        for (final var strategy : values()) {
+            if (strategy.key.equalsIgnoreCase(key)) {
+                return strategy;
+            }
+        }
+        throw new IllegalArgumentException("unknown balance strategy: " + key);
+    }
+}
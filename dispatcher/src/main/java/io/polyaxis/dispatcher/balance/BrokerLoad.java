@@ -0,0 +1,180 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// Live load of one broker as seen by this dispatcher.
+///
+/// Tracks outstanding `invokeCapability` streams and a peak-sensitive EWMA of
+/// time-to-first-`BrokerInvokeResp`: the average decays by `exp(-elapsed / decay)`
+/// since its last sample, also when read, a sample above the decayed average
+/// replaces it at once and samples below blend into it. A broker turning slow
+/// is penalized immediately and forgiven gradually, even while it is not picked
+/// and therefore not sampled.
+///
+/// Brokers report their total plugin in-flight count with every refresh, which
+/// includes work routed by other dispatchers, along with the cumulative time
+/// invocations queued before reaching their plugin. Queue time accrued between
+/// two refreshes divided by the time between them is the average number of
+/// invocations queued meanwhile (Little's law); [#getPressure()] is the larger
+/// of in-flight plus queued and the local outstanding count.
+///
+/// Until its first sample the EWMA holds the seed it was created with (see
+/// [BrokerLoadTracker]), which the first sample replaces outright.
+///
+/// Outstanding streams are bounded by a [VegasLimit] learned from the same
+/// samples, a broker at its limit is not handed more streams.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+@ThreadSafe
+public final class BrokerLoad {
+
+    /// latency floor recorded for a stream failing before its first response
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /// latency ceiling recorded for a stream failing before its first response
+    private static final long MAX_FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final double decayNanos;
+
+    private final VegasLimit limit;
+
+    private volatile double ewmaNanos;
+
+    /// a sample was recorded, the EWMA no longer holds its seed
+    private volatile boolean measured;
+
+    private volatile int reportedInFlight;
+
+    /// average invocations queued on the broker between its last two reports
+    private volatile int reportedQueued;
+
+    /// cumulative queue time of the last report, `-1` before the first one
+    private long queueNanos = -1L;
+
+    /// time of the last report
+    private long reportNanos;
+
+    /// time of the last sample
+    private volatile long stampNanos;
+
+    BrokerLoad(final long decayNanos, final double seedNanos, final VegasLimit limit) {
+        this.decayNanos = decayNanos;
+        this.ewmaNanos = seedNanos;
+        this.limit = limit;
+        this.stampNanos = System.nanoTime();
+    }
+
+    /// Account a stream about to start, unless the broker is at its limit.
+    ///
+    /// @return `false` if the concurrency limit is reached
+    public boolean tryStart() {
+        while (true) {
+            final var current = this.outstanding.get();
+            if (current >= this.limit.get()) {
+                return false;
+            }
+            if (this.outstanding.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /// stream terminated: completed, failed or cancelled
+    public void onFinish() {
+        this.outstanding.decrementAndGet();
+    }
+
+    /// Record a time-to-first-response sample.
+    ///
+    /// @param latencyNanos latency in nanoseconds
+    public void observe(final long latencyNanos) {
+        this.limit.onSample(latencyNanos, this.outstanding.get());
+        this.update(latencyNanos);
+    }
+
+    private synchronized void update(final long latencyNanos) {
+        final var now = System.nanoTime();
+        final var elapsed = Math.max(now - this.stampNanos, 0L);
+        this.stampNanos = now;
+        if (!this.measured) {
+            this.measured = true;
+            this.ewmaNanos = latencyNanos;
+            return;
+        }
+        final var weight = Math.exp(-elapsed / this.decayNanos);
+        final var decayed = this.ewmaNanos * weight;
+        this.ewmaNanos = latencyNanos > decayed ? latencyNanos : decayed + latencyNanos * (1D - weight);
+    }
+
+    /// Record a stream dropped before its first response because the broker was
+    /// overloaded or unreachable, a broker failing fast must not look fast.
+    /// Application failures are not recorded. The penalty is bounded, so consecutive failures
+    /// do not push the EWMA out of reach of its decay.
+    ///
+    /// @param elapsedNanos time until the failure in nanoseconds
+    public void observeFailure(final long elapsedNanos) {
+        this.limit.onDrop();
+        this.update(Math.clamp(elapsedNanos, FAILURE_PENALTY_NANOS, MAX_FAILURE_PENALTY_NANOS));
+    }
+
+    public int getOutstanding() {
+        return this.outstanding.get();
+    }
+
+    /// Record the load reported by the broker itself.
+    ///
+    /// @param inFlight   in-flight invocations across all plugins of the broker
+    /// @param queueNanos cumulative time invocations queued before reaching their plugin
+    public synchronized void report(final int inFlight, final long queueNanos) {
+        final var now = System.nanoTime();
+        final var elapsed = now - this.reportNanos;
+        if (this.queueNanos >= 0L && queueNanos >= this.queueNanos && elapsed > 0L) {
+            this.reportedQueued = (int) Math.min(
+                    Math.round((double) (queueNanos - this.queueNanos) / elapsed), Integer.MAX_VALUE);
+        } else {
+            // first report, or the broker restarted and its counters with it
+            this.reportedQueued = 0;
+        }
+        this.queueNanos = queueNanos;
+        this.reportNanos = now;
+        this.reportedInFlight = Math.max(inFlight, 0);
+    }
+
+    /// outstanding streams, or the broker reported in-flight and queued invocations if more
+    public int getPressure() {
+        final var reported = Math.min((long) this.reportedInFlight + this.reportedQueued, Integer.MAX_VALUE);
+        return Math.max(this.outstanding.get(), (int) reported);
+    }
+
+    public boolean hasCapacity() {
+        return this.outstanding.get() < this.limit.get();
+    }
+
+    /// current concurrency limit
+    public int getLimit() {
+        return this.limit.get();
+    }
+
+    /// EWMA of time-to-first-response decayed to now, its seed before the first sample.
+    public double getEwmaNanos() {
+        final var current = this.ewmaNanos;
+        if (!this.measured) {
+            return current;
+        }
+        final var elapsed = Math.max(System.nanoTime() - this.stampNanos, 0L);
+        // never free, a broker idle for long is cheap but still costs its queue depth
+        return Math.max(current * Math.exp(-elapsed / this.decayNanos), 1D);
+    }
+
+    /// whether a sample was recorded yet
+    public boolean isMeasured() {
+        return this.measured;
+    }
+}
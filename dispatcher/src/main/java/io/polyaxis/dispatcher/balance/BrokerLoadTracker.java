@@ -0,0 +1,99 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.dispatcher.registry.BrokerRecord;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/// [BrokerLoad] of every routed broker, dropped once the broker leaves the registry.
+///
+/// A broker routed for the first time has no latency sample, its EWMA is seeded
+/// with the median of the brokers measured so far, or with the configured
+/// initial EWMA before any was measured. Costed at its queue depth alone, every
+/// dispatcher would herd its traffic onto the newcomer until its first samples.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+@ThreadSafe
+public final class BrokerLoadTracker implements CapabilityRegistry.Listener {
+
+    private final ConcurrentMap<String, BrokerLoad> loads = new ConcurrentHashMap<>();
+
+    private final long decayNanos;
+
+    private final double initialEwmaNanos;
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    /// @param decayMillis        latency EWMA decay window (ms)
+    /// @param initialEwmaMillis  latency EWMA of a new broker before any broker was measured (ms)
+    /// @param initialLimit       concurrency limit of a new broker
+    /// @param minLimit           concurrency limit floor
+    /// @param maxLimit           concurrency limit ceiling
+    public BrokerLoadTracker(
+            final long decayMillis,
+            final long initialEwmaMillis,
+            final int initialLimit,
+            final int minLimit,
+            final int maxLimit
+    ) {
+        this.decayNanos = TimeUnit.MILLISECONDS.toNanos(decayMillis);
+        this.initialEwmaNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(initialEwmaMillis), 1L);
+        this.initialLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    public BrokerLoad get(final BrokerEndpoint endpoint) {
+        final var load = this.loads.get(endpoint.getBrokerId());
+        if (load != null) {
+            return load;
+        }
+        final var seedNanos = this.seedNanos();
+        return this.loads.computeIfAbsent(endpoint.getBrokerId(), key -> new BrokerLoad(this.decayNanos,
+                seedNanos, new VegasLimit(this.initialLimit, this.minLimit, this.maxLimit)));
+    }
+
+    /// median EWMA of the measured brokers, the initial EWMA if none is
+    private double seedNanos() {
+        final var measured = new ArrayList<Double>(this.loads.size());
+        for (final var load : this.loads.values()) {
+            if (load.isMeasured()) {
+                measured.add(load.getEwmaNanos());
+            }
+        }
+        if (measured.isEmpty()) {
+            return this.initialEwmaNanos;
+        }
+        measured.sort(null);
+        final var middle = measured.size() / 2;
+        return measured.size() % 2 == 1 ? measured.get(middle) : (measured.get(middle - 1) + measured.get(middle)) / 2D;
+    }
+
+    /// Apply the load reported by a broker refresh, brokers not routed yet are ignored.
+    ///
+    /// @param brokerId   broker id
+    /// @param inFlight   in-flight invocations across all plugins of the broker
+    /// @param queueNanos cumulative queue time across all plugins of the broker
+    public void report(final String brokerId, final int inFlight, final long queueNanos) {
+        final var load = this.loads.get(brokerId);
+        if (load != null) {
+            load.report(inFlight, queueNanos);
+        }
+    }
+
+    @Override
+    public void onDeregistered(final BrokerRecord record) {
+        this.loads.remove(record.getBrokerId());
+    }
+}
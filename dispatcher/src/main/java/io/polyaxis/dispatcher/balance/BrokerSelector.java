@@ -0,0 +1,20 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+
+import java.util.List;
+
+/// Pick the broker a capability invocation is sent to.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public interface BrokerSelector {
+
+    /// Select one of `candidates`.
+    ///
+    /// @param candidates brokers exposing the capability, never empty
+    /// @param loads      live broker loads
+    /// @return selected broker
+    BrokerEndpoint select(List<BrokerEndpoint> candidates, BrokerLoadTracker loads);
+}
@@ -0,0 +1,14 @@
+package io.polyaxis.dispatcher.balance;
+
+/// P2C on outstanding streams (or broker reported in-flight invocations) only.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public class LeastOutstandingSelector extends AbstractP2cSelector {
+
+    @Override
+    protected double cost(final BrokerLoad load) {
+        return load.getPressure();
+    }
+}
@@ -0,0 +1,18 @@
+package io.polyaxis.dispatcher.balance;
+
+/// P2C on `ewma(time-to-first-response) * (outstanding + 1)`.
+///
+/// Brokers without a latency sample yet are costed at their seeded EWMA (see
+/// [BrokerLoadTracker]), so a newly registered broker gets its share of traffic
+/// and is measured without drawing every stream to it.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public class PeakEwmaSelector extends AbstractP2cSelector {
+
+    @Override
+    protected double cost(final BrokerLoad load) {
+        return load.getEwmaNanos() * (load.getPressure() + 1);
+    }
+}
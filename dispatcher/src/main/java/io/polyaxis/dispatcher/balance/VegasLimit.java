@@ -0,0 +1,86 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+/// Vegas style adaptive concurrency limit of one broker.
+///
+/// The lowest time-to-first-response seen is taken as the broker's no-load
+/// latency, `limit * (1 - noLoad / sample)` then estimates how many streams are
+/// queueing on it. Below `alpha` queued streams the limit grows, above `beta` it
+/// shrinks, in between it holds. Samples taken while less than half of the limit
+/// is used say nothing about capacity and are ignored. The no-load latency is
+/// re-probed every [#PROBE_INTERVAL] samples so a broker that got slower for
+/// good is not throttled forever. A stream the broker dropped before its first
+/// response (unreachable, overloaded or past its deadline) shrinks the limit
+/// multiplicatively, application failures leave it alone.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/18
+/// @since 1.0
+@ThreadSafe
+final class VegasLimit {
+
+    private static final int PROBE_INTERVAL = 1000;
+
+    private static final double BACKOFF = 0.9;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private volatile int limit;
+
+    private long noLoadNanos;
+
+    private int samples;
+
+    VegasLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /// @param rttNanos time-to-first-response
+    /// @param inflight streams in flight when the sample was taken
+    synchronized void onSample(final long rttNanos, final int inflight) {
+        if (rttNanos <= 0L) {
+            return;
+        }
+        if (++this.samples >= PROBE_INTERVAL) {
+            this.samples = 0;
+            this.noLoadNanos = rttNanos;
+            return;
+        }
+        if (this.noLoadNanos == 0L || rttNanos < this.noLoadNanos) {
+            this.noLoadNanos = rttNanos;
+            return;
+        }
+        final var current = this.limit;
+        if (inflight * 2 < current) {
+            return;
+        }
+        final var queued = Math.ceil(current * (1D - (double) this.noLoadNanos / rttNanos));
+        final var step = Math.max(1D, Math.log10(current));
+        final var alpha = 3 * step;
+        final var beta = 6 * step;
+        if (queued <= step) {
+            this.update(current + beta);
+        } else if (queued < alpha) {
+            this.update(current + step);
+        } else if (queued > beta) {
+            this.update(current - step);
+        }
+    }
+
+    synchronized void onDrop() {
+        this.update(this.limit * BACKOFF);
+    }
+
+    int get() {
+        return this.limit;
+    }
+
+    private void update(final double limit) {
+        this.limit = (int) Math.min(this.maxLimit, Math.max(this.minLimit, limit));
+    }
+}
@@ -0,0 +1,47 @@
+package io.polyaxis.dispatcher.balance;
+
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/// Weighted random over every candidate, weight is the inverse of the
+/// [PeakEwmaSelector] cost. Spreads load more evenly than P2C when only a
+/// handful of brokers expose a capability.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+public class WeightedSelector implements BrokerSelector {
+
+    private static final int MAX_CANDIDATES = 64;
+
+    private final PeakEwmaSelector fallback = new PeakEwmaSelector();
+
+    @Override
+    public BrokerEndpoint select(final List<BrokerEndpoint> candidates, final BrokerLoadTracker loads) {
+        final var size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        if (size > MAX_CANDIDATES) {
+            // weights are summed per call, keep that bounded
+            return this.fallback.select(candidates, loads);
+        }
+        final var weights = new double[size];
+        var total = 0D;
+        for (int i = 0; i < size; i++) {
+            final var load = loads.get(candidates.get(i));
+            weights[i] = 1D / (load.getEwmaNanos() * (load.getPressure() + 1));
+            total += weights[i];
+        }
+        var point = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < size; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(size - 1);
+    }
+}
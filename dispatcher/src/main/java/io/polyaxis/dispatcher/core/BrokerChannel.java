@@ -0,0 +1,159 @@
+package io.polyaxis.dispatcher.core;
+
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.network.DubboConstants;
+import io.polyaxis.network.broker.BrokerService;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.config.MethodConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/// One pooled dubbo(tri://) consumer channel to a broker.
+///
+/// Triple keeps a single HTTP/2 connection per broker address, every
+/// `invokeCapability` stream through this channel is multiplexed over it.
+///
+/// Creating a channel is cheap, the blocking connect runs on its first
+/// [#getService()] and only holds up callers of this channel. Streams are
+/// counted in with [#retain()]. A retired channel takes no new stream and is
+/// closed once the last one is counted out, so retiring a channel (idle, broker
+/// deregistered or moved) never cuts a running stream.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/13
+/// @since 1.0
+final class BrokerChannel {
+
+    private final BrokerEndpoint endpoint;
+
+    private final ReferenceConfig<BrokerService> reference;
+
+    /// set in [#streams] once retired
+    private static final int RETIRED = Integer.MIN_VALUE;
+
+    /// streams running through this channel, [#RETIRED] bit set once retired
+    private final AtomicInteger streams = new AtomicInteger();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile BrokerService service;
+
+    private volatile long lastAccessNanos;
+
+    BrokerChannel(final BrokerEndpoint endpoint) {
+        this.endpoint = endpoint;
+        this.reference = constructReferenceConfig(endpoint);
+        this.lastAccessNanos = System.nanoTime();
+    }
+
+    /// construct [ReferenceConfig]
+    private static ReferenceConfig<BrokerService> constructReferenceConfig(final BrokerEndpoint endpoint) {
+        final ReferenceConfig<BrokerService> consumer = new ReferenceConfig<>();
+        consumer.setInterface(BrokerService.class);
+        // use tri:// protocol
+        consumer.setProtocol(CommonConstants.TRIPLE);
+        consumer.setProxy(CommonConstants.NATIVE_STUB);
+        // streams cannot be replayed transparently, never retry at dubbo level
+        consumer.setRetries(0);
+        consumer.setTimeout(DispatcherConstants.CONSUMER_DEFAULT_TIMEOUT);
+        // streams get the same timeout the invoker stamps on invocations without one
+        consumer.setMethods(List.of(
+                method(DubboConstants.METHOD_INVOKE_CAPABILITY, Integer.getInteger(
+                        DispatcherConstants.Properties.CONSUMER_STREAM_TIMEOUT,
+                        DispatcherConstants.CONSUMER_DEFAULT_STREAM_TIMEOUT)),
+                method(DubboConstants.METHOD_PING, Math.toIntExact(Long.getLong(
+                        DispatcherConstants.Properties.CONSUMER_PROBE_TIMEOUT,
+                        DispatcherConstants.CONSUMER_DEFAULT_PROBE_TIMEOUT)))));
+        consumer.setCheck(false);
+        consumer.setUrl(CommonConstants.TRIPLE + "://" + endpoint.getAddress());
+        return consumer;
+    }
+
+    /// [MethodConfig] of `name` with its own timeout, never retried by dubbo
+    private static MethodConfig method(final String name, final int timeoutMillis) {
+        final var method = new MethodConfig();
+        method.setName(name);
+        method.setTimeout(timeoutMillis);
+        method.setRetries(0);
+        return method;
+    }
+
+    /// Count a stream in, keeping the channel from being retired until [#release()].
+    ///
+    /// @return `false` if the channel was retired already
+    boolean retain() {
+        while (true) {
+            final var current = this.streams.get();
+            if (current < 0) {
+                return false;
+            }
+            if (this.streams.compareAndSet(current, current + 1)) {
+                this.lastAccessNanos = System.nanoTime();
+                return true;
+            }
+        }
+    }
+
+    /// Count a stream out, the idle time starts over.
+    ///
+    /// @return `true` if it was the last stream of a retired channel, the caller closes it
+    boolean release() {
+        this.lastAccessNanos = System.nanoTime();
+        return this.streams.decrementAndGet() == RETIRED;
+    }
+
+    /// Retire the channel, no [#retain()] succeeds afterwards.
+    ///
+    /// @return `true` if no stream runs through it, the caller closes it, otherwise
+    ///         the last [#release()] says so
+    boolean retire() {
+        final var previous = this.streams.getAndUpdate(current -> current | RETIRED);
+        return previous == 0;
+    }
+
+    /// Retire the channel if it was unused for `idleNanos` and no stream runs
+    /// through it, no [#retain()] succeeds afterwards.
+    ///
+    /// @return `true` if retired, the caller closes it
+    boolean retireIfIdle(final long nowNanos, final long idleNanos) {
+        return nowNanos - this.lastAccessNanos > idleNanos && this.streams.compareAndSet(0, RETIRED);
+    }
+
+    boolean isRetired() {
+        return this.streams.get() < 0;
+    }
+
+    /// whether [#getService()] returns without connecting
+    boolean isConnected() {
+        return this.service != null;
+    }
+
+    BrokerEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /// stub of the broker, connecting on first use
+    BrokerService getService() {
+        var current = this.service;
+        if (current == null) {
+            synchronized (this) {
+                current = this.service;
+                if (current == null) {
+                    current = this.reference.get();
+                    this.service = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /// destroy the reference, once whoever calls it
+    void close() {
+        if (this.closed.compareAndSet(false, true)) {
+            this.reference.destroy();
+        }
+    }
+}
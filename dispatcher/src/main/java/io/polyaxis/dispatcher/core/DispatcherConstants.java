@@ -13,4 +13,136 @@ public enum DispatcherConstants {
     public static final String DUBBO_SERVICE_GROUP = DUBBO_APPLICATION_NAME;
 
     public static final String DUBBO_SERVICE_VERSION = "1.0.0";
+
+    /// thread pool group of dispatcher consumer side tasks
+    public static final String CONSUMER_EXECUTOR_GROUP = "io.polyaxis.dispatcher.consumer";
+
+    /// consumer timeout of broker channels for methods without their own timeout (ms), streams use
+    /// [#CONSUMER_DEFAULT_STREAM_TIMEOUT] instead
+    public static final Integer CONSUMER_DEFAULT_TIMEOUT = 10_000;
+
+    public static final Long CONSUMER_DEFAULT_IDLE_TIMEOUT = 300_000L;
+
+    public static final Long CONSUMER_DEFAULT_PROBE_TIMEOUT = 3_000L;
+
+    /// dubbo timeout of a whole `invokeCapability` stream (ms), also the timeout stamped on
+    /// invocations without one, so the broker cancels the plugin's work when the transport gives up
+    public static final Integer CONSUMER_DEFAULT_STREAM_TIMEOUT = 300_000;
+
+    /// thread pool group compressing invocation arguments
+    public static final String COMPRESSION_EXECUTOR_GROUP = "io.polyaxis.dispatcher.compression";
+
+    /// thread pool group of broker liveness sweeps
+    public static final String LIVENESS_EXECUTOR_GROUP = "io.polyaxis.dispatcher.liveness";
+
+    public static final String LIVENESS_DEFAULT_PHI_THRESHOLD = "8.0";
+
+    public static final Long LIVENESS_DEFAULT_FIRST_ESTIMATE = 5_000L;
+
+    public static final Long LIVENESS_DEFAULT_TIMEOUT = 15_000L;
+
+    public static final Long LIVENESS_SWEEP_INTERVAL = 500L;
+
+    public static final String BALANCE_DEFAULT_STRATEGY = "ewma";
+
+    public static final Long BALANCE_DEFAULT_EWMA_DECAY = 10_000L;
+
+    public static final Long BALANCE_DEFAULT_EWMA_INITIAL = 50L;
+
+    public static final Integer LIMIT_DEFAULT_INITIAL = 20;
+
+    public static final Integer LIMIT_DEFAULT_MIN = 4;
+
+    public static final Integer LIMIT_DEFAULT_MAX = 500;
+
+    public static final Long CACHE_DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    public static final Integer CACHE_DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    public static final String HEDGE_DEFAULT_BUDGET_RATIO = "0.1";
+
+    public static final Integer HEDGE_DEFAULT_BUDGET_BURST = 10;
+
+    public static final Long HEDGE_DEFAULT_MIN_DELAY = 5L;
+
+    /// Dispatcher properties key
+    public enum Properties {
+        ;
+
+        private static final String CONSUMER_KEY = "dispatcher.consumer.";
+
+        /// `dispatcher.consumer.idle.timeout`, broker channels unused for longer (ms) are closed
+        public static final String CONSUMER_IDLE_TIMEOUT = CONSUMER_KEY + "idle.timeout";
+
+        /// `dispatcher.consumer.probe.timeout`, warm up probe timeout (ms)
+        public static final String CONSUMER_PROBE_TIMEOUT = CONSUMER_KEY + "probe.timeout";
+
+        /// `dispatcher.consumer.stream.timeout`, dubbo timeout and default invocation timeout of a whole
+        /// `invokeCapability` stream (ms)
+        public static final String CONSUMER_STREAM_TIMEOUT = CONSUMER_KEY + "stream.timeout";
+
+        private static final String LIVENESS_KEY = "dispatcher.liveness.";
+
+        /// `dispatcher.liveness.phi.threshold`, phi above which a broker is evicted
+        public static final String LIVENESS_PHI_THRESHOLD = LIVENESS_KEY + "phi.threshold";
+
+        /// `dispatcher.liveness.first.estimate`, heartbeat interval assumed for a new broker (ms)
+        public static final String LIVENESS_FIRST_ESTIMATE = LIVENESS_KEY + "first.estimate";
+
+        /// `dispatcher.liveness.timeout`, hard bound on heartbeat silence before eviction (ms)
+        public static final String LIVENESS_TIMEOUT = LIVENESS_KEY + "timeout";
+
+        private static final String BALANCE_KEY = "dispatcher.balance.";
+
+        /// `dispatcher.balance.strategy`, one of `least-outstanding`, `ewma`, `weighted`
+        public static final String BALANCE_STRATEGY = BALANCE_KEY + "strategy";
+
+        /// `dispatcher.balance.ewma.decay`, latency EWMA decay window (ms)
+        public static final String BALANCE_EWMA_DECAY = BALANCE_KEY + "ewma.decay";
+
+        /// `dispatcher.balance.ewma.initial`, latency EWMA of a broker routed before any
+        /// other broker was measured (ms)
+        public static final String BALANCE_EWMA_INITIAL = BALANCE_KEY + "ewma.initial";
+
+        private static final String LIMIT_KEY = "dispatcher.limit.";
+
+        /// `dispatcher.limit.initial`, concurrency limit of a new broker before any sample
+        public static final String LIMIT_INITIAL = LIMIT_KEY + "initial";
+
+        /// `dispatcher.limit.min`, floor of a broker's adaptive concurrency limit
+        public static final String LIMIT_MIN = LIMIT_KEY + "min";
+
+        /// `dispatcher.limit.max`, ceiling of a broker's adaptive concurrency limit
+        public static final String LIMIT_MAX = LIMIT_KEY + "max";
+
+        private static final String HEDGE_KEY = "dispatcher.hedge.";
+
+        /// `dispatcher.hedge.capabilities`, comma separated idempotent capability ids to hedge
+        public static final String HEDGE_CAPABILITIES = HEDGE_KEY + "capabilities";
+
+        /// `dispatcher.hedge.budget.ratio`, hedges allowed per hedgeable invocation
+        public static final String HEDGE_BUDGET_RATIO = HEDGE_KEY + "budget.ratio";
+
+        /// `dispatcher.hedge.budget.burst`, hedges allowed in a burst
+        public static final String HEDGE_BUDGET_BURST = HEDGE_KEY + "budget.burst";
+
+        /// `dispatcher.hedge.min.delay`, lower bound of the hedge delay (ms)
+        public static final String HEDGE_MIN_DELAY = HEDGE_KEY + "min.delay";
+
+        /// `dispatcher.coalesce.capabilities`, comma separated capability ids whose identical
+        /// invocations share one broker stream, their results must not depend on the caller
+        public static final String COALESCE_CAPABILITIES = "dispatcher.coalesce.capabilities";
+
+        private static final String CACHE_KEY = "dispatcher.cache.";
+
+        /// `dispatcher.cache.capabilities`, comma separated `capability:ttl` (ms) of deterministic
+        /// capabilities whose results are cached
+        public static final String CACHE_CAPABILITIES = CACHE_KEY + "capabilities";
+
+        /// `dispatcher.cache.max.bytes`, serialized response bytes retained by the result cache
+        public static final String CACHE_MAX_BYTES = CACHE_KEY + "max.bytes";
+
+        /// `dispatcher.cache.max.entry.bytes`, streams larger than this are not cached
+        public static final String CACHE_MAX_ENTRY_BYTES = CACHE_KEY + "max.entry.bytes";
+    }
 }
@@ -1,19 +1,184 @@
 package io.polyaxis.dispatcher.core;
 
-import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.dispatcher.registry.BrokerRecord;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.broker.BrokerPingReq;
+import io.polyaxis.network.broker.BrokerService;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /// Application dispatcher dubbo client.
 ///
-/// Dubbo consumer is a lazy starter when receiving broker register request.
+/// Dubbo consumer is a lazy starter when receiving broker register request: a
+/// [BrokerChannel] is opened and warmed up with a `ping` as soon as a broker
+/// registers, so the first capability call does not pay connect and handshake.
+/// Channels without streams for `dispatcher.consumer.idle.timeout` or whose
+/// broker left the [CapabilityRegistry] are retired and reopened on demand, a
+/// retired channel is closed once its last stream ended. Connecting blocks, a
+/// channel not connected yet connects on the consumer executor, never on the
+/// caller's event loop.
 ///
 /// @author github.com/MoritzArena
 /// @date 2025/07/06
 /// @since 1.0
-final class DispatcherDubboClient {
+@ThreadSafe
+public final class DispatcherDubboClient implements CapabilityRegistry.Listener {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    private static final long IDLE_TIMEOUT = Long.getLong(
+            DispatcherConstants.Properties.CONSUMER_IDLE_TIMEOUT, DispatcherConstants.CONSUMER_DEFAULT_IDLE_TIMEOUT);
+
+    private static final long PROBE_TIMEOUT = Long.getLong(
+            DispatcherConstants.Properties.CONSUMER_PROBE_TIMEOUT, DispatcherConstants.CONSUMER_DEFAULT_PROBE_TIMEOUT);
+
+    /// broker id -> channel
+    private final ConcurrentMap<String, BrokerChannel> channels = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    public DispatcherDubboClient(final CapabilityRegistry registry) {
+        this.executor = ExecutorFactory.Managed.newSingleScheduledExecutorService(
+                DispatcherConstants.CONSUMER_EXECUTOR_GROUP,
+                new NamedThreadFactory(DispatcherConstants.CONSUMER_EXECUTOR_GROUP));
+        final var sweepInterval = Math.max(IDLE_TIMEOUT / 4, 1000L);
+        this.executor.scheduleWithFixedDelay(this::evictIdle, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+        registry.addListener(this);
+    }
+
+    /// Stream `request` to `endpoint`, opening its channel if evicted or never
+    /// opened. The channel is not evicted while the stream runs.
+    ///
+    /// @param endpoint broker endpoint
+    /// @param request  invoke request
+    /// @return broker response stream
+    public Multi<BrokerInvokeResp> invokeCapability(final BrokerEndpoint endpoint, final BrokerInvokeReq request) {
+        return Multi.createFrom().deferred(() -> {
+            final var channel = this.lease(endpoint);
+            return this.connected(channel)
+                    .onItem().transformToMulti(service -> service.invokeCapability(Uni.createFrom().item(request)))
+                    .onTermination().invoke(() -> this.release(channel));
+        });
+    }
+
+    /// stub of `channel`, connected on the consumer executor if it is not yet
+    private Uni<BrokerService> connected(final BrokerChannel channel) {
+        if (channel.isConnected()) {
+            return Uni.createFrom().item(channel.getService());
+        }
+        return Uni.createFrom().item(channel::getService).runSubscriptionOn(this.executor);
+    }
+
+    /// count a stream out of `channel`, closing it if it was retired meanwhile
+    private void release(final BrokerChannel channel) {
+        if (channel.release()) {
+            this.executor.execute(channel::close);
+        }
+    }
+
+    /// retire `channel`, closing it now if no stream runs through it
+    private void retire(final BrokerChannel channel) {
+        if (channel.retire()) {
+            this.executor.execute(channel::close);
+        }
+    }
+
+    /// channel of `endpoint` with one more stream counted in
+    private BrokerChannel lease(final BrokerEndpoint endpoint) {
+        while (true) {
+            var channel = this.channels.get(endpoint.getBrokerId());
+            if (channel == null || !channel.getEndpoint().equals(endpoint) || channel.isRetired()) {
+                channel = this.open(endpoint);
+            }
+            if (channel.retain()) {
+                return channel;
+            }
+            // retired by the idle sweep right after the lookup, it leaves the table on its own
+        }
+    }
+
+    @Override
+    public void onRegistered(final BrokerRecord record) {
+        this.executor.execute(() -> {
+            try {
+                this.warmUp(this.open(record.getEndpoint()));
+            } catch (Exception e) {
+                LOGGER.error("open consumer channel to {} failed!", record.getEndpoint(), e);
+            }
+        });
+    }
+
+    @Override
+    public void onDeregistered(final BrokerRecord record) {
+        final var channel = this.channels.remove(record.getBrokerId());
+        if (channel != null) {
+            // a false suspicion must not cut the streams running on a live broker
+            this.retire(channel);
+        }
+    }
+
+    public void close() {
+        for (final var brokerId : this.channels.keySet()) {
+            final var channel = this.channels.remove(brokerId);
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    /// channel of `endpoint`, not connected yet if new: connecting blocks, it never runs inside compute
+    private BrokerChannel open(final BrokerEndpoint endpoint) {
+        return this.channels.compute(endpoint.getBrokerId(), (brokerId, current) -> {
+            if (current != null && current.getEndpoint().equals(endpoint) && !current.isRetired()) {
+                return current;
+            }
+            if (current != null && !current.isRetired()) {
+                // broker re-registered on another address
+                this.retire(current);
+            }
+            LOGGER.info("open dubbo(tri://) consumer channel to {}", endpoint);
+            return new BrokerChannel(endpoint);
+        });
+    }
+
+    private void warmUp(final BrokerChannel channel) {
+        final var start = System.nanoTime();
+        channel.getService()
+                .ping(Uni.createFrom().item(BrokerPingReq.getDefaultInstance()))
+                .ifNoItem().after(Duration.ofMillis(PROBE_TIMEOUT)).fail()
+                .subscribe()
+                .with(
+                        res -> LOGGER.info("consumer channel to {} warmed up in {} ms", channel.getEndpoint(),
+                                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)),
+                        err -> LOGGER.warn("consumer channel to {} warm up failed: {}",
+                                channel.getEndpoint(), err.getMessage())
+                );
+    }
 
-    public DispatcherDubboClient(
-            final DubboBootstrap bootstrap,
-            final Integer portOffset
-    ) {
+    private void evictIdle() {
+        final var now = System.nanoTime();
+        final var idleNanos = TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT);
+        for (final var entry : this.channels.entrySet()) {
+            final var channel = entry.getValue();
+            if (channel.retireIfIdle(now, idleNanos)) {
+                this.channels.remove(entry.getKey(), channel);
+                LOGGER.info("close idle consumer channel to {}", channel.getEndpoint());
+                channel.close();
+            }
+        }
     }
 }
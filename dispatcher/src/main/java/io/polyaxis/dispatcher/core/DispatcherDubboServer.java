@@ -1,9 +1,13 @@
 package io.polyaxis.dispatcher.core;
 
 import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.network.TripleTransport;
+import io.polyaxis.dispatcher.balance.BrokerLoadTracker;
+import io.polyaxis.dispatcher.invoke.BrokerCodecs;
+import io.polyaxis.dispatcher.registry.BrokerLivenessMonitor;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
 import io.polyaxis.network.dispatcher.DispatcherService;
-import org.apache.dubbo.common.constants.CommonConstants;
-import org.apache.dubbo.config.ProtocolConfig;
+import io.polyaxis.network.payload.PayloadCompression;
 import org.apache.dubbo.config.ServiceConfig;
 import org.apache.dubbo.config.bootstrap.DubboBootstrap;
 import org.slf4j.Logger;
@@ -21,21 +25,34 @@ final class DispatcherDubboServer {
 
     public DispatcherDubboServer(
             final DubboBootstrap bootstrap,
-            final Integer actualPort
+            final Integer actualPort,
+            final TripleTransport transport,
+            final CapabilityRegistry registry,
+            final BrokerLivenessMonitor liveness,
+            final BrokerLoadTracker loads,
+            final PayloadCompression compression,
+            final BrokerCodecs codecs
     ) {
-        this.provider = this.constructServiceConfig();
+        this.provider = this.constructServiceConfig(registry, liveness, loads, compression, codecs);
         // usually use actualPort(port + 1000) as broker dubbo server port
-        bootstrap.protocol(new ProtocolConfig(CommonConstants.TRIPLE, actualPort)).service(this.provider);
-        LOGGER.info("dispatcher dubbo(tri://) server has been built at port {}, waiting for unified start", actualPort);
+        bootstrap.protocol(transport.protocol(actualPort)).service(this.provider);
+        LOGGER.info("dispatcher dubbo(tri://) server has been built at port {} with {}, waiting for unified start",
+                actualPort, transport);
     }
 
     /// construct [DispatcherService]s config
-    private ServiceConfig<DispatcherService> constructServiceConfig() {
+    private ServiceConfig<DispatcherService> constructServiceConfig(
+            final CapabilityRegistry registry,
+            final BrokerLivenessMonitor liveness,
+            final BrokerLoadTracker loads,
+            final PayloadCompression compression,
+            final BrokerCodecs codecs
+    ) {
         final ServiceConfig<DispatcherService> serviceConfig = new ServiceConfig<>();
         serviceConfig.setGroup(DispatcherConstants.DUBBO_SERVICE_GROUP);
         serviceConfig.setVersion(DispatcherConstants.DUBBO_SERVICE_VERSION);
         serviceConfig.setInterface(DispatcherService.class);
-        serviceConfig.setRef(new DispatcherServiceProvider());
+        serviceConfig.setRef(new DispatcherServiceProvider(registry, liveness, loads, compression, codecs));
         serviceConfig.setRegister(false);
         serviceConfig.setExport(true);
         return serviceConfig;
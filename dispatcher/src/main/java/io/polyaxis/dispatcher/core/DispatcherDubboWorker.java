@@ -1,14 +1,34 @@
 package io.polyaxis.dispatcher.core;
 
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
 import io.polyaxis.api.utils.context.EnvironmentUtils;
 import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.api.utils.misc.StringUtils;
+import io.polyaxis.dispatcher.balance.BalanceStrategy;
+import io.polyaxis.dispatcher.balance.BrokerLoadTracker;
+import io.polyaxis.dispatcher.invoke.BrokerCodecs;
+import io.polyaxis.dispatcher.invoke.CapabilityInvoker;
+import io.polyaxis.dispatcher.invoke.HedgePolicy;
+import io.polyaxis.dispatcher.invoke.InvocationCoalescer;
+import io.polyaxis.dispatcher.invoke.ResultCache;
+import io.polyaxis.dispatcher.registry.BrokerLivenessMonitor;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
 import io.polyaxis.network.DubboConstants;
+import io.polyaxis.network.RetryBudget;
+import io.polyaxis.network.TripleTransport;
+import io.polyaxis.network.payload.PayloadCompression;
 import io.quarkus.runtime.Startup;
 import jakarta.inject.Singleton;
 import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.bootstrap.DubboBootstrap;
 import org.slf4j.Logger;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /// Application dispatcher dubbo worker.
 ///
 /// @author github.com/MoritzArena
@@ -25,10 +45,22 @@ public class DispatcherDubboWorker {
 
     private final DubboBootstrap bootstrap;
 
+    private final CapabilityRegistry registry;
+
+    private final BrokerLivenessMonitor liveness;
+
+    private final BrokerLoadTracker loads;
+
+    private final PayloadCompression compression;
+
+    private final BrokerCodecs codecs;
+
     private final DispatcherDubboClient dispatcherDubboClient;
 
     private final DispatcherDubboServer dispatcherDubboServer;
 
+    private final CapabilityInvoker capabilityInvoker;
+
     public DispatcherDubboWorker() {
         this.bootstrap = DubboBootstrap.getInstance();
         // init dubbo application config
@@ -37,14 +69,83 @@ public class DispatcherDubboWorker {
         appConfig.setQosPort(-1);
         appConfig.setQosAcceptForeignIp(false);
         this.bootstrap.application(appConfig);
+        // capability routes shared by dubbo server (writer) and routing (reader)
+        this.registry = new CapabilityRegistry();
+        this.liveness = new BrokerLivenessMonitor(this.registry,
+                ExecutorFactory.Managed.newSingleScheduledExecutorService(
+                        DispatcherConstants.LIVENESS_EXECUTOR_GROUP,
+                        new NamedThreadFactory(DispatcherConstants.LIVENESS_EXECUTOR_GROUP)),
+                Double.parseDouble(System.getProperty(DispatcherConstants.Properties.LIVENESS_PHI_THRESHOLD,
+                        DispatcherConstants.LIVENESS_DEFAULT_PHI_THRESHOLD)),
+                Long.getLong(DispatcherConstants.Properties.LIVENESS_FIRST_ESTIMATE,
+                        DispatcherConstants.LIVENESS_DEFAULT_FIRST_ESTIMATE),
+                Long.getLong(DispatcherConstants.Properties.LIVENESS_TIMEOUT,
+                        DispatcherConstants.LIVENESS_DEFAULT_TIMEOUT),
+                DispatcherConstants.LIVENESS_SWEEP_INTERVAL);
+        // broker loads shared by dubbo server (reported in-flight) and routing (local samples)
+        this.loads = new BrokerLoadTracker(Long.getLong(DispatcherConstants.Properties.BALANCE_EWMA_DECAY,
+                DispatcherConstants.BALANCE_DEFAULT_EWMA_DECAY),
+                Long.getLong(DispatcherConstants.Properties.BALANCE_EWMA_INITIAL,
+                        DispatcherConstants.BALANCE_DEFAULT_EWMA_INITIAL),
+                Integer.getInteger(DispatcherConstants.Properties.LIMIT_INITIAL,
+                        DispatcherConstants.LIMIT_DEFAULT_INITIAL),
+                Integer.getInteger(DispatcherConstants.Properties.LIMIT_MIN,
+                        DispatcherConstants.LIMIT_DEFAULT_MIN),
+                Integer.getInteger(DispatcherConstants.Properties.LIMIT_MAX,
+                        DispatcherConstants.LIMIT_DEFAULT_MAX));
+        // payload codecs negotiated with brokers by the dubbo server, used by routing
+        this.compression = PayloadCompression.fromProperties();
+        this.codecs = new BrokerCodecs();
         // build dubbo client and server
-        this.dispatcherDubboClient = new DispatcherDubboClient(bootstrap, PORT_OFFSET);
-        this.dispatcherDubboServer = new DispatcherDubboServer(bootstrap, this.getPort());
+        this.dispatcherDubboClient = new DispatcherDubboClient(this.registry);
+        this.dispatcherDubboServer = new DispatcherDubboServer(bootstrap, this.getPort(),
+                TripleTransport.fromProperties(), this.registry, this.liveness, this.loads,
+                this.compression, this.codecs);
+        // route capability invocations over the client
+        this.capabilityInvoker = new CapabilityInvoker(this.registry, this.dispatcherDubboClient,
+                BalanceStrategy.of(System.getProperty(DispatcherConstants.Properties.BALANCE_STRATEGY,
+                        DispatcherConstants.BALANCE_DEFAULT_STRATEGY)).newSelector(),
+                this.loads,
+                new HedgePolicy(capabilities(DispatcherConstants.Properties.HEDGE_CAPABILITIES),
+                        Double.parseDouble(System.getProperty(DispatcherConstants.Properties.HEDGE_BUDGET_RATIO,
+                                DispatcherConstants.HEDGE_DEFAULT_BUDGET_RATIO)),
+                        Integer.getInteger(DispatcherConstants.Properties.HEDGE_BUDGET_BURST,
+                                DispatcherConstants.HEDGE_DEFAULT_BUDGET_BURST),
+                        Long.getLong(DispatcherConstants.Properties.HEDGE_MIN_DELAY,
+                                DispatcherConstants.HEDGE_DEFAULT_MIN_DELAY)),
+                new InvocationCoalescer(capabilities(DispatcherConstants.Properties.COALESCE_CAPABILITIES)),
+                new ResultCache(ttls(DispatcherConstants.Properties.CACHE_CAPABILITIES),
+                        Long.getLong(DispatcherConstants.Properties.CACHE_MAX_BYTES,
+                                DispatcherConstants.CACHE_DEFAULT_MAX_BYTES),
+                        Integer.getInteger(DispatcherConstants.Properties.CACHE_MAX_ENTRY_BYTES,
+                                DispatcherConstants.CACHE_DEFAULT_MAX_ENTRY_BYTES)),
+                this.compression,
+                this.codecs,
+                RetryBudget.fromProperties());
         // start broker dubbo client and server
         this.start0();
         LOGGER.info("dispatcher dubbo server and client started successfully");
     }
 
+    /// comma separated capability ids of property `key`
+    private static Set<String> capabilities(final String key) {
+        return Set.copyOf(List.of(StringUtils.tokenizeToStringArray(System.getProperty(key), ",", true, true)));
+    }
+
+    /// comma separated `capability:ttl` of property `key`
+    private static Map<String, Long> ttls(final String key) {
+        final var ttls = new HashMap<String, Long>();
+        for (final var item : StringUtils.tokenizeToStringArray(System.getProperty(key), ",", true, true)) {
+            final var separator = item.lastIndexOf(':');
+            if (separator <= 0) {
+                LOGGER.warn("ignore {} entry '{}', expecting capability:ttl", key, item);
+                continue;
+            }
+            ttls.put(item.substring(0, separator).trim(), Long.parseLong(item.substring(separator + 1).trim()));
+        }
+        return ttls;
+    }
+
     public void stop() {
         this.stop0();
     }
@@ -54,9 +155,22 @@ public class DispatcherDubboWorker {
     }
 
     private void stop0() {
+        this.dispatcherDubboClient.close();
         this.bootstrap.stop();
     }
 
+    public CapabilityRegistry getRegistry() {
+        return registry;
+    }
+
+    public DispatcherDubboClient getDispatcherDubboClient() {
+        return dispatcherDubboClient;
+    }
+
+    public CapabilityInvoker getCapabilityInvoker() {
+        return capabilityInvoker;
+    }
+
     public Integer getPort() {
         return EnvironmentUtils.getPort() + PORT_OFFSET;
     }
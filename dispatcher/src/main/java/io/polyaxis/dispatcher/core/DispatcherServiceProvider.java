@@ -1,12 +1,20 @@
 package io.polyaxis.dispatcher.core;
 
-import com.google.protobuf.Descriptors;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import io.polyaxis.dispatcher.balance.BrokerLoadTracker;
+import io.polyaxis.dispatcher.invoke.BrokerCodecs;
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.dispatcher.registry.BrokerLivenessMonitor;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
 import io.polyaxis.network.dispatcher.BrokerRefreshReq;
 import io.polyaxis.network.dispatcher.BrokerRefreshResp;
 import io.polyaxis.network.dispatcher.BrokerRegisterReq;
 import io.polyaxis.network.dispatcher.BrokerRegisterResp;
 import io.polyaxis.network.dispatcher.DubboDispatcherServiceTriple;
+import io.polyaxis.network.dispatcher.PluginLoad;
+import io.polyaxis.network.payload.PayloadCompression;
 import io.smallrye.mutiny.Uni;
+import org.slf4j.Logger;
 
 /// Application dispatcher service provider.
 ///
@@ -16,15 +24,68 @@ import io.smallrye.mutiny.Uni;
 public class DispatcherServiceProvider
         extends DubboDispatcherServiceTriple.DispatcherServiceImplBase {
 
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    private final CapabilityRegistry registry;
+
+    private final BrokerLivenessMonitor liveness;
+
+    private final BrokerLoadTracker loads;
+
+    private final PayloadCompression compression;
+
+    private final BrokerCodecs codecs;
+
+    public DispatcherServiceProvider(
+            final CapabilityRegistry registry,
+            final BrokerLivenessMonitor liveness,
+            final BrokerLoadTracker loads,
+            final PayloadCompression compression,
+            final BrokerCodecs codecs
+    ) {
+        this.registry = registry;
+        this.liveness = liveness;
+        this.loads = loads;
+        this.compression = compression;
+        this.codecs = codecs;
+    }
+
     @Override
     public Uni<BrokerRegisterResp> registerBroker(Uni<BrokerRegisterReq> request) {
-        return Uni.createFrom().item(BrokerRegisterResp.newBuilder()
-                .setMessage("Hello World!")
-                .build());
+        return request.onItem().transform(req -> {
+            final var endpoint = BrokerEndpoint.of(req.getBrokerId(), req.getBrokerHost(), req.getBrokerPort());
+            this.codecs.put(endpoint.getBrokerId(), req.getAcceptedCodecsList());
+            this.registry.register(endpoint, req.getPluginsMap().keySet(), req.getEpoch());
+            this.liveness.heartbeat(endpoint.getBrokerId());
+            return BrokerRegisterResp.newBuilder()
+                    .setMessage("registered " + endpoint.getBrokerId())
+                    .addAllAcceptedCodecs(this.compression.getAccepted())
+                    .build();
+        }).onFailure().invoke(err -> LOGGER.error("register broker failed!", err));
     }
 
     @Override
     public Uni<BrokerRefreshResp> refreshBroker(Uni<BrokerRefreshReq> request) {
-        return Uni.createFrom().item(BrokerRefreshResp.newBuilder().build());
+        return request.onItem().transform(req -> {
+            final var applied = this.registry.refresh(req.getBrokerId(), req.getForceUpdate(),
+                    req.getBaseEpoch(), req.getEpoch(), req.getPluginsMap().keySet(), req.getRemovedPluginsList());
+            if (!applied) {
+                LOGGER.info("broker {} catalogue diverged at epoch {}, ask for full resync",
+                        req.getBrokerId(), req.getBaseEpoch());
+                return BrokerRefreshResp.newBuilder()
+                        .setResyncRequired(true)
+                        .addAllAcceptedCodecs(this.compression.getAccepted())
+                        .build();
+            }
+            this.liveness.heartbeat(req.getBrokerId());
+            final var pluginLoads = req.getPluginLoadsMap().values();
+            this.loads.report(req.getBrokerId(),
+                    pluginLoads.stream().mapToInt(PluginLoad::getInFlight).sum(),
+                    pluginLoads.stream().mapToLong(PluginLoad::getQueueNanos).sum());
+            return BrokerRefreshResp.newBuilder()
+                    .setEpoch(req.getEpoch())
+                    .addAllAcceptedCodecs(this.compression.getAccepted())
+                    .build();
+        }).onFailure().invoke(err -> LOGGER.error("refresh broker failed!", err));
     }
 }
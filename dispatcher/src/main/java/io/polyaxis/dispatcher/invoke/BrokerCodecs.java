@@ -0,0 +1,41 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.dispatcher.registry.BrokerRecord;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
+import io.polyaxis.network.payload.Codec;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/// Payload codecs every registered broker advertised it decodes, dropped once
+/// the broker leaves the registry.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/30
+/// @since 1.0
+@ThreadSafe
+public final class BrokerCodecs implements CapabilityRegistry.Listener {
+
+    private final ConcurrentMap<String, List<Codec>> codecs = new ConcurrentHashMap<>();
+
+    /// Record the codecs advertised by a broker registration.
+    ///
+    /// @param brokerId broker id
+    /// @param accepted codecs the broker decodes
+    public void put(final String brokerId, final List<Codec> accepted) {
+        this.codecs.put(brokerId, List.copyOf(accepted));
+    }
+
+    /// codecs `endpoint` decodes, empty if it advertised none
+    public List<Codec> get(final BrokerEndpoint endpoint) {
+        return this.codecs.getOrDefault(endpoint.getBrokerId(), List.of());
+    }
+
+    @Override
+    public void onDeregistered(final BrokerRecord record) {
+        this.codecs.remove(record.getBrokerId());
+    }
+}
@@ -0,0 +1,417 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.google.protobuf.Any;
+import io.polyaxis.api.utils.concurrency.ExecutorFactory;
+import io.polyaxis.api.utils.concurrency.NamedThreadFactory;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.dispatcher.balance.BrokerLoadTracker;
+import io.polyaxis.dispatcher.balance.BrokerSelector;
+import io.polyaxis.dispatcher.core.DispatcherConstants;
+import io.polyaxis.dispatcher.core.DispatcherDubboClient;
+import io.polyaxis.dispatcher.registry.BrokerEndpoint;
+import io.polyaxis.dispatcher.registry.CapabilityRegistry;
+import io.polyaxis.network.RetryBudget;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.polyaxis.network.payload.PayloadCompression;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.TriRpcStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/// Route a capability invocation to one broker and stream its responses back.
+///
+/// Every stream is accounted on the selected broker's load: outstanding while
+/// subscribed, and its time-to-first-response (or time-to-failure) feeds the
+/// latency EWMA used by the [BrokerSelector]. A broker at its adaptive concurrency
+/// limit is skipped, if every candidate is saturated the call fails fast with
+/// `UNAVAILABLE` instead of queueing on the broker.
+///
+/// Capabilities opted in the [HedgePolicy] are hedged: a second stream is sent to
+/// another broker if the first one produced nothing within the capability's p95,
+/// whichever answers first is kept (see [HedgedCall]). Identical invocations of
+/// capabilities opted in the [InvocationCoalescer] arriving before its first
+/// response share one broker stream, and capabilities with a TTL in the
+/// [ResultCache] are answered from it on a hit.
+///
+/// A stream failing `UNAVAILABLE` before its first response never ran on the
+/// broker, it is moved once to another broker as long as the [RetryBudget]
+/// allows, so retries stay a fraction of successful streams during an outage.
+///
+/// Large arguments are compressed once per invocation on a worker pool, and sent
+/// compressed to every broker advertising the codec (see [BrokerCodecs]). Every
+/// invocation advertises the codecs this dispatcher decodes, results are
+/// decompressed before anything else sees them and a corrupt one fails the
+/// stream with `INVALID_ARGUMENT`.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/14
+/// @since 1.0
+@ThreadSafe
+public final class CapabilityInvoker {
+
+    /// timeout (ms) given to invocations without one, a stream may run as long as the transport lets it
+    private static final long STREAM_TIMEOUT = Integer.getInteger(
+            DispatcherConstants.Properties.CONSUMER_STREAM_TIMEOUT,
+            DispatcherConstants.CONSUMER_DEFAULT_STREAM_TIMEOUT);
+
+    /// compresses large arguments, CPU bound
+    private static final ExecutorService COMPRESSION_EXECUTOR = ExecutorFactory.Managed.newFixedExecutorService(
+            DispatcherConstants.COMPRESSION_EXECUTOR_GROUP, Runtime.getRuntime().availableProcessors(),
+            new NamedThreadFactory(DispatcherConstants.COMPRESSION_EXECUTOR_GROUP));
+
+    private final CapabilityRegistry registry;
+
+    private final DispatcherDubboClient client;
+
+    private final BrokerSelector selector;
+
+    private final BrokerLoadTracker loads;
+
+    private final HedgePolicy hedging;
+
+    private final InvocationCoalescer coalescer;
+
+    private final ResultCache cache;
+
+    private final PayloadCompression compression;
+
+    private final BrokerCodecs codecs;
+
+    private final RetryBudget retries;
+
+    public CapabilityInvoker(
+            final CapabilityRegistry registry,
+            final DispatcherDubboClient client,
+            final BrokerSelector selector,
+            final BrokerLoadTracker loads,
+            final HedgePolicy hedging,
+            final InvocationCoalescer coalescer,
+            final ResultCache cache,
+            final PayloadCompression compression,
+            final BrokerCodecs codecs,
+            final RetryBudget retries
+    ) {
+        this.registry = registry;
+        this.client = client;
+        this.selector = selector;
+        this.loads = loads;
+        this.hedging = hedging;
+        this.coalescer = coalescer;
+        this.cache = cache;
+        this.compression = compression;
+        this.codecs = codecs;
+        this.retries = retries;
+        registry.addListener(loads);
+        registry.addListener(codecs);
+    }
+
+    /// Invoke `request.capability_id` on a selected broker.
+    ///
+    /// A request without timeout gets the stream timeout, the broker cancels the
+    /// plugin's work once it passed instead of generating for nobody. Retries and
+    /// hedges started later are sent with the timeout left.
+    ///
+    /// @param original invoke request
+    /// @return broker response stream
+    public Multi<BrokerInvokeResp> invoke(final BrokerInvokeReq original) {
+        final var request = this.prepare(original);
+        final var capabilityId = request.getCapabilityId();
+        final var cached = this.cache.isCached(capabilityId);
+        final var coalesced = this.coalescer.isCoalesced(capabilityId);
+        if (!cached && !coalesced) {
+            return this.route(request);
+        }
+        return Multi.createFrom().deferred(() -> {
+            final var key = InvocationKey.of(request);
+            if (cached) {
+                final var hit = this.cache.get(key);
+                if (hit != null) {
+                    return hit;
+                }
+            }
+            // record once per flight, not once per coalesced subscriber
+            final Supplier<Multi<BrokerInvokeResp>> upstream = cached
+                    ? () -> this.cache.record(key, this.route(request))
+                    : () -> this.route(request);
+            return coalesced ? this.coalescer.coalesce(key, upstream) : upstream.get();
+        });
+    }
+
+    private Multi<BrokerInvokeResp> route(final BrokerInvokeReq request) {
+        if (!request.hasArguments()
+                || !this.compression.isCompressible(PayloadCompression.INVOKE_CAPABILITY, request.getArguments())) {
+            return this.route(request, null);
+        }
+        // compress once for every attempt and hedge, off the caller's event loop
+        return Uni.createFrom()
+                .item(() -> this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, request.getArguments()))
+                .runSubscriptionOn(COMPRESSION_EXECUTOR)
+                .onItem().transformToMulti(arguments ->
+                        this.route(request, arguments == request.getArguments() ? null : arguments));
+    }
+
+    /// `compressed` arguments of `request`, `null` if they stay uncompressed
+    private Multi<BrokerInvokeResp> route(final BrokerInvokeReq request, final Any compressed) {
+        return Multi.createFrom().deferred(() -> {
+            final var routed = System.nanoTime();
+            final var candidates = this.registry.lookup(request.getCapabilityId());
+            if (candidates.isEmpty()) {
+                return Multi.createFrom().failure(TriRpcStatus.NOT_FOUND
+                        .withDescription("no broker exposes capability " + request.getCapabilityId())
+                        .asException());
+            }
+            final var primary = this.available(candidates);
+            if (primary == null) {
+                return Multi.createFrom().failure(TriRpcStatus.UNAVAILABLE
+                        .withDescription("every broker of capability " + request.getCapabilityId()
+                                + " is at its concurrency limit")
+                        .asException());
+            }
+            final var capabilityId = request.getCapabilityId();
+            if (!this.hedging.isHedged(capabilityId) || candidates.size() < 2) {
+                return this.retrying(candidates, primary, request, compressed, routed);
+            }
+            this.hedging.getBudget().deposit();
+            final var delayNanos = this.hedging.delayNanos(capabilityId);
+            if (delayNanos < 0) {
+                // no p95 observed yet
+                return this.retrying(candidates, primary, request, compressed, routed);
+            }
+            return Multi.createFrom().<BrokerInvokeResp>publisher(subscriber -> new HedgedCall(subscriber).start(
+                    this.invoke(primary, request, compressed),
+                    () -> this.hedge(candidates, primary, request, compressed, routed), delayNanos));
+        });
+    }
+
+    /// selected broker below its concurrency limit, `null` if all are saturated
+    private BrokerEndpoint available(final List<BrokerEndpoint> candidates) {
+        final var selected = this.selector.select(candidates, this.loads);
+        if (this.loads.get(selected).hasCapacity()) {
+            return selected;
+        }
+        final var others = candidates.stream().filter(item -> this.loads.get(item).hasCapacity()).toList();
+        return others.isEmpty() ? null : this.selector.select(others, this.loads);
+    }
+
+    /// stream on `primary`, moved to another broker if it fails retryably before its first response
+    private Multi<BrokerInvokeResp> retrying(
+            final List<BrokerEndpoint> candidates,
+            final BrokerEndpoint primary,
+            final BrokerInvokeReq request,
+            final Any compressed,
+            final long routedNanos
+    ) {
+        final var responded = new AtomicBoolean();
+        return this.invoke(primary, request, compressed)
+                .onItem().invoke(() -> responded.lazySet(true))
+                .onFailure(err -> !responded.get() && RetryBudget.isRetryable(err))
+                .recoverWithMulti(err -> {
+                    final var others = candidates.stream()
+                            .filter(item -> !item.equals(primary) && this.loads.get(item).hasCapacity()).toList();
+                    final var retry = remaining(request, routedNanos);
+                    if (retry == null || others.isEmpty() || !this.retries.tryRetry()) {
+                        return Multi.createFrom().failure(err);
+                    }
+                    return this.invoke(this.selector.select(others, this.loads), retry, compressed);
+                });
+    }
+
+    /// hedge stream on another broker than `primary`, `null` if out of budget
+    private Multi<BrokerInvokeResp> hedge(
+            final List<BrokerEndpoint> candidates,
+            final BrokerEndpoint primary,
+            final BrokerInvokeReq request,
+            final Any compressed,
+            final long routedNanos
+    ) {
+        final var others = candidates.stream()
+                .filter(item -> !item.equals(primary) && this.loads.get(item).hasCapacity()).toList();
+        final var hedge = remaining(request, routedNanos);
+        if (hedge == null || others.isEmpty() || !this.hedging.getBudget().tryWithdraw()) {
+            return null;
+        }
+        return this.invoke(this.selector.select(others, this.loads), hedge, compressed);
+    }
+
+    /// `request` with the timeout left `routedNanos` after routing, `null` if none is left
+    private static BrokerInvokeReq remaining(final BrokerInvokeReq request, final long routedNanos) {
+        final var timeout = request.getMetadata().getTimeoutMillis();
+        final var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - routedNanos);
+        if (timeout <= 0L || elapsed <= 0L) {
+            return request;
+        }
+        if (elapsed >= timeout) {
+            return null;
+        }
+        final var builder = request.toBuilder();
+        builder.getMetadataBuilder().setTimeoutMillis(timeout - elapsed);
+        return builder.build();
+    }
+
+    /// Invoke `request` on `endpoint`, bypassing selection but not its concurrency
+    /// limit. The arguments are sent uncompressed.
+    ///
+    /// @param endpoint broker endpoint
+    /// @param request  invoke request
+    /// @return broker response stream
+    public Multi<BrokerInvokeResp> invoke(final BrokerEndpoint endpoint, final BrokerInvokeReq request) {
+        return this.invoke(endpoint, request, null);
+    }
+
+    /// `compressed` arguments of `request`, sent instead if `endpoint` decodes them
+    private Multi<BrokerInvokeResp> invoke(
+            final BrokerEndpoint endpoint,
+            final BrokerInvokeReq request,
+            final Any compressed
+    ) {
+        return Multi.createFrom().deferred(() -> {
+            final var load = this.loads.get(endpoint);
+            final var firstSeen = new AtomicBoolean();
+            if (!load.tryStart()) {
+                return Multi.createFrom().failure(TriRpcStatus.UNAVAILABLE
+                        .withDescription("broker " + endpoint + " is at its concurrency limit " + load.getLimit())
+                        .asException());
+            }
+            final var start = System.nanoTime();
+            final Multi<BrokerInvokeResp> stream;
+            try {
+                stream = this.client.invokeCapability(endpoint, this.outgoing(endpoint, request, compressed));
+            } catch (RuntimeException e) {
+                load.onFinish();
+                throw e;
+            }
+            return stream
+                    .onItem().transformToIterable(CapabilityInvoker::unfold)
+                    .onItem().invoke(() -> {
+                        if (!firstSeen.get() && firstSeen.compareAndSet(false, true)) {
+                            final var latency = System.nanoTime() - start;
+                            load.observe(latency);
+                            if (this.hedging.isHedged(request.getCapabilityId())) {
+                                this.hedging.record(request.getCapabilityId(), latency);
+                            }
+                        }
+                    })
+                    .onFailure().invoke(failure -> {
+                        if (firstSeen.compareAndSet(false, true) && isDrop(failure)) {
+                            load.observeFailure(System.nanoTime() - start);
+                        }
+                    })
+                    .onCompletion().invoke(this.retries::onSuccess)
+                    .onTermination().invoke(load::onFinish);
+        });
+    }
+
+    /// `request` as sent to `endpoint`, rebuilt only to carry `compressed` arguments it decodes
+    private BrokerInvokeReq outgoing(
+            final BrokerEndpoint endpoint,
+            final BrokerInvokeReq request,
+            final Any compressed
+    ) {
+        if (compressed == null
+                || !this.compression.accepts(PayloadCompression.INVOKE_CAPABILITY, this.codecs.get(endpoint))) {
+            return request;
+        }
+        return request.toBuilder().setArguments(compressed).build();
+    }
+
+    /// `request` with a timeout and the codecs decoded here, rebuilt at most once and only if either is missing
+    private BrokerInvokeReq prepare(final BrokerInvokeReq request) {
+        final var metadata = request.getMetadata();
+        final var accepted = this.compression.getAccepted();
+        final var stampTimeout = metadata.getTimeoutMillis() <= 0L;
+        final var stampCodecs = !metadata.getAcceptedCodecsList().equals(accepted);
+        if (!stampTimeout && !stampCodecs) {
+            return request;
+        }
+        // arguments are carried over by reference, never re-serialized
+        final var builder = request.toBuilder();
+        final var metadataBuilder = builder.getMetadataBuilder();
+        if (stampTimeout) {
+            metadataBuilder.setTimeoutMillis(STREAM_TIMEOUT);
+        }
+        if (stampCodecs) {
+            metadataBuilder.clearAcceptedCodecs().addAllAcceptedCodecs(accepted);
+        }
+        return builder.build();
+    }
+
+    /// Whether `failure` says the broker is overloaded or unreachable. Application
+    /// statuses (e.g. `INVALID_ARGUMENT`, `NOT_FOUND`) say nothing about its
+    /// capacity and must not shrink its concurrency limit.
+    private static boolean isDrop(final Throwable failure) {
+        for (var cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException
+                    || cause instanceof RpcException rpc && (rpc.isNetwork() || rpc.isTimeout())) {
+                return true;
+            }
+        }
+        return switch (TriRpcStatus.getStatus(failure).code) {
+            case UNAVAILABLE, DEADLINE_EXCEEDED, RESOURCE_EXHAUSTED -> true;
+            default -> false;
+        };
+    }
+
+    /// frames merged by the broker's coalescing, back to one decompressed frame per result
+    private static List<BrokerInvokeResp> unfold(final BrokerInvokeResp frame) {
+        try {
+            return unfold0(frame);
+        } catch (IllegalArgumentException e) {
+            // a corrupt result must end the stream with a status, not a raw exception
+            throw TriRpcStatus.INVALID_ARGUMENT
+                    .withDescription("corrupt compressed result: " + e.getMessage())
+                    .withCause(e)
+                    .asException();
+        }
+    }
+
+    private static List<BrokerInvokeResp> unfold0(final BrokerInvokeResp frame) {
+        if (frame.getCoalescedResCount() == 0) {
+            if (!PayloadCompression.isCompressed(frame.getIvkRes())) {
+                return List.of(frame);
+            }
+            return List.of(frame.toBuilder().setIvkRes(PayloadCompression.decompress(frame.getIvkRes())).build());
+        }
+        final var frames = new ArrayList<BrokerInvokeResp>(frame.getCoalescedResCount());
+        for (final var result : frame.getCoalescedResList()) {
+            frames.add(BrokerInvokeResp.newBuilder().setIvkRes(PayloadCompression.decompress(result)).build());
+        }
+        return frames;
+    }
+
+    public CapabilityRegistry getRegistry() {
+        return registry;
+    }
+
+    public BrokerLoadTracker getLoads() {
+        return loads;
+    }
+
+    public HedgePolicy getHedging() {
+        return hedging;
+    }
+
+    public InvocationCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    public PayloadCompression getCompression() {
+        return compression;
+    }
+
+    public RetryBudget getRetries() {
+        return retries;
+    }
+}
@@ -0,0 +1,49 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Token bucket capping hedges to a fraction of invocations.
+///
+/// Every hedgeable invocation deposits `ratio` of a token, every hedge withdraws
+/// a whole one, the bucket holds at most `burst` tokens. Under a latency storm
+/// the bucket drains and hedging stops instead of doubling the load.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+final class HedgeBudget {
+
+    /// milli tokens per token
+    private static final long UNIT = 1000L;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+    HedgeBudget(final double ratio, final int burst) {
+        this.deposit = Math.max(0L, Math.round(ratio * UNIT));
+        this.capacity = Math.max(1L, burst) * UNIT;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    void deposit() {
+        this.balance.updateAndGet(current -> Math.min(this.capacity, current + this.deposit));
+    }
+
+    boolean tryWithdraw() {
+        while (true) {
+            final var current = this.balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (this.balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/// Which capabilities are hedged and when.
+///
+/// Only idempotent capabilities may opt in, a hedge is sent once the primary
+/// stream stayed silent for the capability's observed p95 time-to-first-response,
+/// never earlier than `minDelayMillis`, and only while the [HedgeBudget] allows.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+public final class HedgePolicy {
+
+    public static final HedgePolicy DISABLED = new HedgePolicy(Set.of(), 0.0, 1, 0L);
+
+    private static final double QUANTILE = 0.95;
+
+    private final Set<String> capabilities;
+
+    private final HedgeBudget budget;
+
+    private final long minDelayNanos;
+
+    /// capability id -> time-to-first-response quantile
+    private final ConcurrentMap<String, LatencyQuantile> latencies = new ConcurrentHashMap<>();
+
+    /// @param capabilities   idempotent capability ids opted in
+    /// @param budgetRatio    hedges allowed per invocation, e.g. `0.1`
+    /// @param budgetBurst    hedges allowed in a burst
+    /// @param minDelayMillis lower bound of the hedge delay (ms)
+    public HedgePolicy(
+            final Set<String> capabilities,
+            final double budgetRatio,
+            final int budgetBurst,
+            final long minDelayMillis
+    ) {
+        this.capabilities = Set.copyOf(capabilities);
+        this.budget = new HedgeBudget(budgetRatio, budgetBurst);
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    }
+
+    public boolean isHedged(final String capabilityId) {
+        return this.capabilities.contains(capabilityId);
+    }
+
+    /// Hedge delay of `capabilityId` (ns), `-1` while its p95 is still unknown.
+    long delayNanos(final String capabilityId) {
+        final var quantile = this.latencies.get(capabilityId);
+        final var p95 = quantile == null ? -1L : quantile.get();
+        return p95 < 0 ? -1L : Math.max(p95, this.minDelayNanos);
+    }
+
+    void record(final String capabilityId, final long latencyNanos) {
+        this.latencies.computeIfAbsent(capabilityId, ignored -> new LatencyQuantile(QUANTILE)).record(latencyNanos);
+    }
+
+    HedgeBudget getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,340 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/// One hedged invocation: a primary stream, and a hedge stream started if the
+/// primary stays silent for `delayNanos`.
+///
+/// The first stream to produce a response (or to complete) wins, the other one
+/// is cancelled and only the winner is relayed downstream. A stream failing
+/// before anyone won does not fail the call while the other one is still running.
+///
+/// Demand-aware: each stream is asked for a single response until one wins,
+/// then downstream demand is relayed to the winner as it comes, so a slow
+/// consumer holds at most that first response here. Signals update the state
+/// under the call's monitor, one thread at a time runs the drain loop and
+/// signals downstream and the winner with the monitor released.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+final class HedgedCall implements Flow.Subscription {
+
+    private static final int NONE = -1;
+
+    private static final int PRIMARY = 0;
+
+    private static final int HEDGE = 1;
+
+    private final Flow.Subscriber<? super BrokerInvokeResp> downstream;
+
+    private final Leg[] legs = {new Leg(PRIMARY), new Leg(HEDGE)};
+
+    private final Timer timer = new Timer();
+
+    /// responses of the winner not relayed yet
+    private final ArrayDeque<BrokerInvokeResp> queue = new ArrayDeque<>();
+
+    private int winner = NONE;
+
+    /// legs started and not failed yet
+    private int pending = 1;
+
+    /// requested downstream, not relayed yet
+    private long demand;
+
+    /// requested from the winner, not received yet, the probe of each leg included
+    private long outstanding = 1L;
+
+    private boolean done;
+
+    private Throwable failure;
+
+    private boolean cancelled;
+
+    /// a thread runs the drain loop, signals meanwhile only update state
+    private boolean draining;
+
+    HedgedCall(final Flow.Subscriber<? super BrokerInvokeResp> downstream) {
+        this.downstream = downstream;
+    }
+
+    /// @param primary    primary stream
+    /// @param hedge      hedge stream, supplying `null` if no hedge may be sent
+    /// @param delayNanos silence of the primary before hedging (ns)
+    void start(
+            final Multi<BrokerInvokeResp> primary,
+            final Supplier<Multi<BrokerInvokeResp>> hedge,
+            final long delayNanos
+    ) {
+        this.downstream.onSubscribe(this);
+        primary.subscribe().withSubscriber(this.legs[PRIMARY]);
+        this.timer.attach(Uni.createFrom().voidItem()
+                .onItem().delayIt().by(Duration.ofNanos(delayNanos))
+                .subscribe().with(ignored -> this.launch(hedge)));
+    }
+
+    @Override
+    public void request(final long n) {
+        synchronized (this) {
+            if (n <= 0L) {
+                this.done = true;
+                this.failure = new IllegalArgumentException("non-positive request " + n);
+                this.queue.clear();
+            } else {
+                this.demand = this.demand + n < 0L ? Long.MAX_VALUE : this.demand + n;
+            }
+        }
+        if (n <= 0L) {
+            this.cancelLegs();
+        }
+        this.drain();
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (this) {
+            if (this.cancelled) {
+                return;
+            }
+            this.cancelled = true;
+            this.queue.clear();
+        }
+        this.cancelLegs();
+    }
+
+    private void launch(final Supplier<Multi<BrokerInvokeResp>> hedge) {
+        synchronized (this) {
+            if (this.winner != NONE || this.done || this.cancelled) {
+                return;
+            }
+        }
+        final var stream = hedge.get();
+        if (stream == null) {
+            return;
+        }
+        synchronized (this) {
+            if (this.winner != NONE || this.done || this.cancelled) {
+                return;
+            }
+            this.pending++;
+        }
+        stream.subscribe().withSubscriber(this.legs[HEDGE]);
+    }
+
+    private void onItem(final int index, final BrokerInvokeResp item) {
+        final boolean won;
+        synchronized (this) {
+            if (this.done || this.cancelled) {
+                return;
+            }
+            won = this.win(index);
+            if (won) {
+                this.outstanding = Math.max(0L, this.outstanding - 1L);
+                this.queue.addLast(item);
+            }
+        }
+        this.settle(index, won);
+        if (won) {
+            this.drain();
+        }
+    }
+
+    private void onFailure(final int index, final Throwable err) {
+        final boolean last;
+        synchronized (this) {
+            if (this.done || this.cancelled) {
+                return;
+            }
+            last = this.winner == index || this.winner == NONE && --this.pending == 0;
+            if (last) {
+                this.done = true;
+                this.failure = err;
+            }
+        }
+        if (last) {
+            this.drain();
+            this.timer.cancel();
+        }
+    }
+
+    private void onCompletion(final int index) {
+        final boolean won;
+        synchronized (this) {
+            if (this.done || this.cancelled) {
+                return;
+            }
+            won = this.win(index);
+            if (won) {
+                this.done = true;
+            }
+        }
+        this.settle(index, won);
+        if (won) {
+            this.drain();
+        }
+    }
+
+    /// `true` if `index` is (or just became) the winner, call with the monitor held
+    private boolean win(final int index) {
+        if (this.winner == NONE) {
+            this.winner = index;
+        }
+        return this.winner == index;
+    }
+
+    /// cancel what lost to `index`, or `index` itself if it lost
+    private void settle(final int index, final boolean won) {
+        if (won) {
+            this.timer.cancel();
+            this.legs[1 - index].cancel();
+        } else {
+            this.legs[index].cancel();
+        }
+    }
+
+    private void drain() {
+        synchronized (this) {
+            if (this.draining) {
+                // the running loop re-reads the state this signal changed
+                return;
+            }
+            this.draining = true;
+        }
+        while (true) {
+            BrokerInvokeResp item = null;
+            Leg source = null;
+            long request = 0L;
+            boolean terminate = false;
+            Throwable error = null;
+            // decide under the monitor, act outside of it
+            synchronized (this) {
+                if (this.cancelled) {
+                    this.draining = false;
+                    return;
+                }
+                if (!this.queue.isEmpty() && this.demand > 0L) {
+                    item = this.queue.pollFirst();
+                    this.demand--;
+                } else if (this.done && this.queue.isEmpty()) {
+                    this.cancelled = true;
+                    terminate = true;
+                    error = this.failure;
+                } else if (this.winner != NONE && !this.done
+                        && (request = this.demand - this.outstanding - this.queue.size()) > 0L) {
+                    this.outstanding += request;
+                    source = this.legs[this.winner];
+                } else {
+                    this.draining = false;
+                    return;
+                }
+            }
+            if (item != null) {
+                this.downstream.onNext(item);
+            } else if (terminate) {
+                if (error != null) {
+                    this.downstream.onError(error);
+                } else {
+                    this.downstream.onComplete();
+                }
+                return;
+            } else {
+                source.request(request);
+            }
+        }
+    }
+
+    private void cancelLegs() {
+        this.timer.cancel();
+        this.legs[PRIMARY].cancel();
+        this.legs[HEDGE].cancel();
+    }
+
+    /// one stream of the call, which may be cancelled before it is subscribed
+    private final class Leg implements Flow.Subscriber<BrokerInvokeResp> {
+
+        private final int index;
+
+        private volatile Flow.Subscription subscription;
+
+        private volatile boolean cancelled;
+
+        private Leg(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (this.cancelled) {
+                subscription.cancel();
+            } else {
+                // probe for the first response, more is relayed once this leg won
+                subscription.request(1L);
+            }
+        }
+
+        @Override
+        public void onNext(final BrokerInvokeResp item) {
+            HedgedCall.this.onItem(this.index, item);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            HedgedCall.this.onFailure(this.index, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            HedgedCall.this.onCompletion(this.index);
+        }
+
+        void request(final long n) {
+            final var current = this.subscription;
+            if (current != null && !this.cancelled) {
+                current.request(n);
+            }
+        }
+
+        void cancel() {
+            this.cancelled = true;
+            final var current = this.subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+
+    /// the hedge delay, which may be cancelled before it is attached
+    private static final class Timer {
+
+        private volatile Cancellable cancellable;
+
+        private volatile boolean cancelled;
+
+        void attach(final Cancellable cancellable) {
+            this.cancellable = cancellable;
+            if (this.cancelled) {
+                cancellable.cancel();
+            }
+        }
+
+        void cancel() {
+            this.cancelled = true;
+            final var current = this.cancellable;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+/// Single-flight coalescing of identical capability invocations.
+///
+/// Invocations of an opted-in capability with byte-identical `arguments` share
+/// one broker stream until its first response: whoever joins before gets every
+/// response, invocations arriving later start a flight of their own. Nothing is
+/// replayed, so a flight holds no more than what its subscribers asked for.
+/// Flights are keyed by [InvocationKey], the arguments are never deserialized.
+///
+/// The broker stream is asked for what the slowest subscriber asked for, at most
+/// [#PREFETCH] responses ahead, so coalescing keeps end-to-end backpressure. A
+/// subscriber joining after responses were requested buffers at most those.
+///
+/// The caller's `metadata` is not part of the key, only capabilities whose result
+/// does not depend on the caller may opt in.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/17
+/// @since 1.0
+@ThreadSafe
+public final class InvocationCoalescer {
+
+    public static final InvocationCoalescer DISABLED = new InvocationCoalescer(Set.of());
+
+    /// responses requested from the broker stream ahead of delivery
+    private static final int PREFETCH = 16;
+
+    private final Set<String> capabilities;
+
+    private final ConcurrentMap<InvocationKey, Flight> flights = new ConcurrentHashMap<>();
+
+    /// @param capabilities capability ids opted in
+    public InvocationCoalescer(final Set<String> capabilities) {
+        this.capabilities = Set.copyOf(capabilities);
+    }
+
+    public boolean isCoalesced(final String capabilityId) {
+        return this.capabilities.contains(capabilityId);
+    }
+
+    /// Join the flight of `key`, starting it with `upstream` if none accepts joiners.
+    ///
+    /// @param key      invocation key
+    /// @param upstream broker stream of the invocation
+    /// @return shared response stream
+    Multi<BrokerInvokeResp> coalesce(final InvocationKey key, final Supplier<Multi<BrokerInvokeResp>> upstream) {
+        return Multi.createFrom().publisher(subscriber -> {
+            while (true) {
+                final var flight = this.flights.computeIfAbsent(key, ignored -> new Flight(key, upstream));
+                if (flight.join(subscriber)) {
+                    return;
+                }
+                // closed in between, drop it if still mapped and start over
+                this.flights.remove(key, flight);
+            }
+        });
+    }
+
+    /// flights accepting joiners, for tests and metrics
+    int getOpenFlights() {
+        return this.flights.size();
+    }
+
+    /// One broker stream and its subscribers. Signals update the state under the
+    /// flight's monitor, one thread at a time runs the drain loop and signals
+    /// subscribers and the broker stream with the monitor released.
+    private final class Flight implements Flow.Subscriber<BrokerInvokeResp> {
+
+        private final InvocationKey key;
+
+        private final Supplier<Multi<BrokerInvokeResp>> source;
+
+        private final List<Member> members = new ArrayList<>(2);
+
+        private Flow.Subscription upstream;
+
+        /// the broker stream was subscribed
+        private boolean started;
+
+        /// no new subscriber, the first response arrived or everybody left
+        private boolean closed;
+
+        /// everybody left, the broker stream is cancelled
+        private boolean cancelled;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        /// requested from the broker stream, not received yet
+        private long outstanding;
+
+        /// a thread runs the drain loop, signals meanwhile only update state
+        private boolean draining;
+
+        private Flight(final InvocationKey key, final Supplier<Multi<BrokerInvokeResp>> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        /// @return `false` if the flight no longer takes subscribers
+        private boolean join(final Flow.Subscriber<? super BrokerInvokeResp> subscriber) {
+            final var member = new Member(subscriber);
+            final boolean start;
+            synchronized (this) {
+                if (this.closed) {
+                    return false;
+                }
+                this.members.add(member);
+                start = !this.started;
+                this.started = true;
+            }
+            subscriber.onSubscribe(member);
+            if (start) {
+                final Multi<BrokerInvokeResp> stream;
+                try {
+                    stream = this.source.get();
+                } catch (RuntimeException e) {
+                    this.onError(e);
+                    return true;
+                }
+                stream.subscribe().withSubscriber(this);
+            }
+            return true;
+        }
+
+        @Override
+        public void onSubscribe(final Flow.Subscription subscription) {
+            final boolean cancel;
+            synchronized (this) {
+                this.upstream = subscription;
+                cancel = this.cancelled;
+            }
+            if (cancel) {
+                subscription.cancel();
+                return;
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onNext(final BrokerInvokeResp item) {
+            final boolean first;
+            synchronized (this) {
+                if (this.done || this.cancelled) {
+                    return;
+                }
+                this.outstanding = Math.max(0L, this.outstanding - 1L);
+                first = !this.closed;
+                this.closed = true;
+                for (final var member : this.members) {
+                    member.queue.addLast(item);
+                }
+            }
+            if (first) {
+                InvocationCoalescer.this.flights.remove(this.key, this);
+            }
+            this.drain();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            this.terminate(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            this.terminate(null);
+        }
+
+        private void terminate(final Throwable throwable) {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+                this.closed = true;
+                this.failure = throwable;
+            }
+            InvocationCoalescer.this.flights.remove(this.key, this);
+            this.drain();
+        }
+
+        /// `member` cancelled, or requested a non-positive amount
+        private void leave(final Member member, final Throwable error) {
+            synchronized (this) {
+                if (member.gone || member.failure != null) {
+                    return;
+                }
+                member.queue.clear();
+                if (error == null) {
+                    member.gone = true;
+                    this.members.remove(member);
+                } else {
+                    member.failure = error;
+                }
+            }
+            this.drain();
+        }
+
+        private void drain() {
+            synchronized (this) {
+                if (this.draining) {
+                    // the running loop re-reads the state this signal changed
+                    return;
+                }
+                this.draining = true;
+            }
+            while (true) {
+                Member target = null;
+                BrokerInvokeResp item = null;
+                Throwable error = null;
+                boolean cancel = false;
+                long request = 0L;
+                Flow.Subscription subscription = null;
+                // decide under the monitor, act outside of it
+                synchronized (this) {
+                    for (final var member : this.members) {
+                        if (member.failure != null || this.done && member.queue.isEmpty()) {
+                            target = member;
+                            error = member.failure != null ? member.failure : this.failure;
+                            break;
+                        }
+                        if (!member.queue.isEmpty() && member.demand > 0L) {
+                            target = member;
+                            item = member.queue.pollFirst();
+                            member.demand--;
+                            break;
+                        }
+                    }
+                    if (target != null && item == null) {
+                        // terminal signal, the member leaves
+                        target.gone = true;
+                        this.members.remove(target);
+                    }
+                    if (target == null) {
+                        if (this.members.isEmpty() && !this.done && !this.cancelled && this.started) {
+                            // everybody left, nobody listens to the broker stream anymore
+                            this.closed = true;
+                            this.cancelled = true;
+                            cancel = true;
+                            subscription = this.upstream;
+                        } else if (!this.done && !this.cancelled && this.upstream != null
+                                && (request = this.wanted() - this.outstanding) > 0L) {
+                            this.outstanding += request;
+                            subscription = this.upstream;
+                        } else {
+                            this.draining = false;
+                            return;
+                        }
+                    }
+                }
+                if (item != null) {
+                    target.subscriber.onNext(item);
+                } else if (target != null) {
+                    if (error != null) {
+                        target.subscriber.onError(error);
+                    } else {
+                        target.subscriber.onComplete();
+                    }
+                } else if (cancel) {
+                    InvocationCoalescer.this.flights.remove(this.key, this);
+                    if (subscription != null) {
+                        subscription.cancel();
+                    }
+                } else {
+                    subscription.request(request);
+                }
+            }
+        }
+
+        /// responses the slowest subscriber has room for, at most [#PREFETCH], call with the monitor held
+        private long wanted() {
+            var wanted = (long) PREFETCH;
+            for (final var member : this.members) {
+                wanted = Math.min(wanted, member.demand - member.queue.size());
+            }
+            return this.members.isEmpty() ? 0L : wanted;
+        }
+
+        /// one subscriber of the flight, guarded by the flight's monitor
+        private final class Member implements Flow.Subscription {
+
+            private final Flow.Subscriber<? super BrokerInvokeResp> subscriber;
+
+            /// responses received and not delivered yet
+            private final ArrayDeque<BrokerInvokeResp> queue = new ArrayDeque<>();
+
+            /// requested, not delivered yet
+            private long demand;
+
+            /// failed by its own non-positive request
+            private Throwable failure;
+
+            /// cancelled or terminated
+            private boolean gone;
+
+            private Member(final Flow.Subscriber<? super BrokerInvokeResp> subscriber) {
+                this.subscriber = subscriber;
+            }
+
+            @Override
+            public void request(final long n) {
+                if (n <= 0L) {
+                    Flight.this.leave(this, new IllegalArgumentException("non-positive request " + n));
+                    return;
+                }
+                synchronized (Flight.this) {
+                    if (this.gone) {
+                        return;
+                    }
+                    this.demand = this.demand + n < 0L ? Long.MAX_VALUE : this.demand + n;
+                }
+                Flight.this.drain();
+            }
+
+            @Override
+            public void cancel() {
+                Flight.this.leave(this, null);
+            }
+        }
+    }
+}
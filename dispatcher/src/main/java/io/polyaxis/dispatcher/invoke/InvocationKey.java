@@ -0,0 +1,33 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.google.protobuf.ByteString;
+import io.polyaxis.network.broker.BrokerInvokeReq;
+
+/// Identity of a capability invocation: capability id and the serialized arguments.
+///
+/// The arguments are never deserialized, [ByteString] caches its hash and is only
+/// compared byte-wise on a hash match, so a collision cannot mix two invocations.
+/// A key outliving its invocation (cached results) is [#detached()] first, so it
+/// never pins the buffer the request was decoded from.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/19
+/// @since 1.0
+record InvocationKey(String capabilityId, String typeUrl, ByteString arguments) {
+
+    static InvocationKey of(final BrokerInvokeReq request) {
+        return new InvocationKey(request.getCapabilityId(),
+                request.getArguments().getTypeUrl(), request.getArguments().getValue());
+    }
+
+    /// this key owning a copy of its arguments, never a slice of a larger buffer
+    InvocationKey detached() {
+        return new InvocationKey(this.capabilityId, this.typeUrl,
+                ByteString.copyFrom(this.arguments.asReadOnlyByteBuffer()));
+    }
+
+    /// approximate retained bytes
+    int weight() {
+        return this.capabilityId.length() + this.typeUrl.length() + this.arguments.size();
+    }
+}
@@ -0,0 +1,56 @@
+package io.polyaxis.dispatcher.invoke;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+import java.util.Arrays;
+
+/// Quantile of the last [#WINDOW_SIZE] time-to-first-response samples of one capability.
+///
+/// The quantile is recomputed every [#RECOMPUTE_EVERY] samples and cached, so
+/// reading it on the invocation path is a volatile read.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+final class LatencyQuantile {
+
+    static final int WINDOW_SIZE = 128;
+
+    static final int MIN_SAMPLES = 20;
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final double quantile;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+
+    private int index;
+
+    private int count;
+
+    /// cached quantile (ns), `-1` until [#MIN_SAMPLES] were recorded
+    private volatile long cached = -1L;
+
+    LatencyQuantile(final double quantile) {
+        this.quantile = quantile;
+    }
+
+    synchronized void record(final long latencyNanos) {
+        this.samples[this.index] = latencyNanos;
+        this.index = (this.index + 1) % WINDOW_SIZE;
+        if (this.count < WINDOW_SIZE) {
+            this.count++;
+        }
+        if (this.count >= MIN_SAMPLES && (this.cached < 0 || this.index % RECOMPUTE_EVERY == 0)) {
+            final var sorted = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(sorted);
+            this.cached = sorted[(int) Math.min(this.count - 1, Math.ceil(this.quantile * this.count) - 1)];
+        }
+    }
+
+    /// @return quantile (ns), `-1` if not enough samples yet
+    long get() {
+        return this.cached;
+    }
+}
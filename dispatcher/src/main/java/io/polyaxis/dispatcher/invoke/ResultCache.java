@@ -0,0 +1,117 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Bounded cache of complete capability response streams.
+///
+/// Only capabilities configured with a TTL are cached, keyed by [InvocationKey].
+/// A stream is recorded while it is relayed and stored once it completed, a hit
+/// replays the recorded responses without touching any broker. Failed, cancelled
+/// or oversized streams are never stored.
+///
+/// Backed by Caffeine: W-TinyLFU admission keeps one-off invocations from
+/// flushing popular ones, eviction is by the serialized size of the responses,
+/// and every entry expires after its capability's TTL.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/19
+/// @since 1.0
+@ThreadSafe
+public final class ResultCache {
+
+    public static final ResultCache DISABLED = new ResultCache(Map.of(), 0L, 0);
+
+    /// capability id -> ttl
+    private final Map<String, Duration> ttls;
+
+    private final int maxEntryBytes;
+
+    private final Cache<InvocationKey, CachedResult> cache;
+
+    /// @param ttls          capability id -> TTL (ms)
+    /// @param maxBytes      total serialized bytes retained
+    /// @param maxEntryBytes serialized bytes of one stream above which it is not cached
+    public ResultCache(final Map<String, Long> ttls, final long maxBytes, final int maxEntryBytes) {
+        final var durations = new HashMap<String, Duration>();
+        ttls.forEach((capabilityId, ttl) -> {
+            if (ttl > 0L) {
+                durations.put(capabilityId, Duration.ofMillis(ttl));
+            }
+        });
+        this.ttls = Map.copyOf(durations);
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(0L, maxBytes))
+                .weigher((InvocationKey key, CachedResult value) -> value.weight())
+                .expireAfter(Expiry.creating((InvocationKey key, CachedResult value) -> value.ttl()))
+                .build();
+    }
+
+    public boolean isCached(final String capabilityId) {
+        return this.ttls.containsKey(capabilityId);
+    }
+
+    /// Replay of `key`, `null` on miss.
+    Multi<BrokerInvokeResp> get(final InvocationKey key) {
+        final var result = this.cache.getIfPresent(key);
+        return result == null ? null : Multi.createFrom().iterable(result.responses);
+    }
+
+    /// Relay `upstream`, storing its responses under `key` once it completed.
+    Multi<BrokerInvokeResp> record(final InvocationKey key, final Multi<BrokerInvokeResp> upstream) {
+        final var ttl = this.ttls.get(key.capabilityId());
+        if (ttl == null) {
+            return upstream;
+        }
+        return Multi.createFrom().deferred(() -> {
+            final var recorder = new Recorder(key.weight());
+            return upstream
+                    .onItem().invoke(recorder::add)
+                    .onCompletion().invoke(() -> {
+                        if (recorder.responses != null) {
+                            this.cache.put(key.detached(),
+                                    new CachedResult(List.copyOf(recorder.responses), recorder.bytes, ttl));
+                        }
+                    });
+        });
+    }
+
+    /// responses of one stream being relayed, items of a stream are serialized
+    private final class Recorder {
+
+        private List<BrokerInvokeResp> responses = new ArrayList<>();
+
+        private int bytes;
+
+        private Recorder(final int keyBytes) {
+            this.bytes = keyBytes;
+        }
+
+        private void add(final BrokerInvokeResp response) {
+            if (this.responses == null) {
+                return;
+            }
+            this.bytes += response.getSerializedSize();
+            if (this.bytes > ResultCache.this.maxEntryBytes) {
+                // too large to be worth caching, keep relaying only
+                this.responses = null;
+            } else {
+                this.responses.add(response);
+            }
+        }
+    }
+
+    private record CachedResult(List<BrokerInvokeResp> responses, int weight, Duration ttl) {
+    }
+}
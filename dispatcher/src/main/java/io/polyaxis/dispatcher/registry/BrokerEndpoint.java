@@ -0,0 +1,82 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.Immutable;
+import io.polyaxis.api.utils.misc.StringUtils;
+
+import java.util.Objects;
+
+/// Broker endpoint, the dubbo(tri://) address a broker is consumed on.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/12
+/// @since 1.0
+@Immutable
+public final class BrokerEndpoint {
+
+    private final String brokerId;
+
+    private final String host;
+
+    private final int port;
+
+    private BrokerEndpoint(final String brokerId, final String host, final int port) {
+        this.brokerId = brokerId;
+        this.host = host;
+        this.port = port;
+    }
+
+    /// Build a [BrokerEndpoint], `brokerId` falls back to `host:port` when blank.
+    ///
+    /// @param brokerId broker identity
+    /// @param host     broker host
+    /// @param port     broker dubbo(tri://) port
+    /// @return endpoint
+    public static BrokerEndpoint of(final String brokerId, final String host, final int port) {
+        if (StringUtils.isBlank(host)) {
+            throw new IllegalArgumentException("broker host cannot be blank");
+        }
+        if (port <= 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("illegal broker port: " + port);
+        }
+        final var id = StringUtils.isBlank(brokerId) ? host + StringUtils.COLON + port : brokerId;
+        return new BrokerEndpoint(id, host, port);
+    }
+
+    public String getBrokerId() {
+        return brokerId;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /// `host:port`
+    public String getAddress() {
+        return host + StringUtils.COLON + port;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BrokerEndpoint that)) {
+            return false;
+        }
+        return port == that.port && brokerId.equals(that.brokerId) && host.equals(that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(brokerId, host, port);
+    }
+
+    @Override
+    public String toString() {
+        return "BrokerEndpoint{id=" + brokerId + ", address=" + getAddress() + '}';
+    }
+}
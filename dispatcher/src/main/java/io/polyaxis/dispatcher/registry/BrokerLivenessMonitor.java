@@ -0,0 +1,105 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/// Evict dead brokers from the [CapabilityRegistry].
+///
+/// Each broker's heartbeats (register and refresh) feed a
+/// [PhiAccrualFailureDetector]; a periodic sweep evicts brokers whose `phi`
+/// exceeds the threshold, or whose last heartbeat is older than a hard
+/// timeout, which bounds the eviction delay whatever the learned distribution.
+///
+/// Heartbeats are timed on the monotonic clock: a wall clock stepped by NTP
+/// would feed bogus intervals to the detectors, or age every heartbeat past the
+/// hard timeout at once.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+public final class BrokerLivenessMonitor implements CapabilityRegistry.Listener {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    private static final int WINDOW_SIZE = 100;
+
+    private static final double MIN_STD_DEV_MILLIS = 200D;
+
+    private static final long ACCEPTABLE_PAUSE_MILLIS = 3_000L;
+
+    private final CapabilityRegistry registry;
+
+    private final ConcurrentMap<String, PhiAccrualFailureDetector> detectors = new ConcurrentHashMap<>();
+
+    private final double phiThreshold;
+
+    private final long firstEstimateMillis;
+
+    private final long hardTimeoutMillis;
+
+    public BrokerLivenessMonitor(
+            final CapabilityRegistry registry,
+            final ScheduledExecutorService executor,
+            final double phiThreshold,
+            final long firstEstimateMillis,
+            final long hardTimeoutMillis,
+            final long sweepIntervalMillis
+    ) {
+        this.registry = registry;
+        this.phiThreshold = phiThreshold;
+        this.firstEstimateMillis = firstEstimateMillis;
+        this.hardTimeoutMillis = hardTimeoutMillis;
+        registry.addListener(this);
+        executor.scheduleWithFixedDelay(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /// Record a heartbeat of `brokerId`.
+    ///
+    /// @param brokerId broker id
+    public void heartbeat(final String brokerId) {
+        final var now = nowMillis();
+        final var detector = this.detectors.get(brokerId);
+        if (detector == null) {
+            this.detectors.computeIfAbsent(brokerId, key -> new PhiAccrualFailureDetector(
+                    WINDOW_SIZE, this.firstEstimateMillis, MIN_STD_DEV_MILLIS, ACCEPTABLE_PAUSE_MILLIS, now));
+            return;
+        }
+        detector.heartbeat(now);
+    }
+
+    /// monotonic time in milliseconds, only meaningful as a difference
+    private static long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Override
+    public void onDeregistered(final BrokerRecord record) {
+        this.detectors.remove(record.getBrokerId());
+    }
+
+    private void sweep() {
+        try {
+            final var now = nowMillis();
+            for (final var entry : this.detectors.entrySet()) {
+                final var detector = entry.getValue();
+                final var phi = detector.phi(now);
+                final var silence = now - detector.getLastHeartbeatMillis();
+                if (phi > this.phiThreshold || silence > this.hardTimeoutMillis) {
+                    LOGGER.warn("broker {} suspected dead (phi {}, silent for {} ms), evict it",
+                            entry.getKey(), String.format("%.2f", phi), silence);
+                    this.detectors.remove(entry.getKey(), detector);
+                    this.registry.deregister(entry.getKey());
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("broker liveness sweep failed!", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.Immutable;
+
+import java.util.Set;
+
+/// What the dispatcher knows about one registered broker.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/12
+/// @since 1.0
+@Immutable
+public final class BrokerRecord {
+
+    private final BrokerEndpoint endpoint;
+
+    private final Set<String> capabilities;
+
+    /// broker catalogue epoch these capabilities were taken at
+    private final long epoch;
+
+    BrokerRecord(final BrokerEndpoint endpoint, final Set<String> capabilities, final long epoch) {
+        this.endpoint = endpoint;
+        this.capabilities = Set.copyOf(capabilities);
+        this.epoch = epoch;
+    }
+
+    public BrokerEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getBrokerId() {
+        return endpoint.getBrokerId();
+    }
+
+    /// capability ids exposed by this broker, immutable.
+    public Set<String> getCapabilities() {
+        return capabilities;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public String toString() {
+        return "BrokerRecord{endpoint=" + endpoint + ", capabilities=" + capabilities.size() + ", epoch=" + epoch + '}';
+    }
+}
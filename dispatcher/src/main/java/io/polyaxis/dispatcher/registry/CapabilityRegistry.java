@@ -0,0 +1,146 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+import io.polyaxis.api.utils.misc.LoggerScope;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/// In-memory registry of capability id to broker endpoints.
+///
+/// Readers always see a complete [RegistrySnapshot] through one volatile read, so
+/// routing on the chat path never blocks. Writers (broker register, refresh and
+/// eviction) are serialized on a private lock and publish a new snapshot.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/12
+/// @since 1.0
+@ThreadSafe
+public final class CapabilityRegistry {
+
+    private static final Logger LOGGER = LoggerScope.DUBBO;
+
+    private final Object writeLock = new Object();
+
+    private volatile RegistrySnapshot snapshot = RegistrySnapshot.EMPTY;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /// Subscribe broker membership changes, callbacks run on the writer's thread
+    /// after the new snapshot has been published.
+    ///
+    /// @param listener [Listener]
+    public void addListener(final Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /// Brokers exposing `capabilityId`, lock free.
+    ///
+    /// @param capabilityId capability id
+    /// @return immutable endpoint list, empty if none
+    public List<BrokerEndpoint> lookup(final String capabilityId) {
+        return this.snapshot.lookup(capabilityId);
+    }
+
+    /// Current immutable snapshot, lock free.
+    public RegistrySnapshot snapshot() {
+        return this.snapshot;
+    }
+
+    /// Register a broker or replace its previous registration.
+    ///
+    /// @param endpoint     broker endpoint
+    /// @param capabilities capability ids exposed by the broker
+    /// @param epoch        broker catalogue epoch of `capabilities`
+    public void register(final BrokerEndpoint endpoint, final Collection<String> capabilities, final long epoch) {
+        final var record = new BrokerRecord(endpoint, Set.copyOf(capabilities), epoch);
+        synchronized (this.writeLock) {
+            this.snapshot = this.snapshot.upsert(record);
+        }
+        LOGGER.info("broker {} registered with {} capability(s)", endpoint, record.getCapabilities().size());
+        for (final var listener : this.listeners) {
+            listener.onRegistered(record);
+        }
+    }
+
+    /// Apply a catalogue refresh of a registered broker.
+    ///
+    /// A delta is only applied on top of the epoch it was computed against, any
+    /// divergence (lost refresh, dispatcher restart, unknown broker) is reported
+    /// so the broker resyncs with its full catalogue.
+    ///
+    /// @param brokerId    broker id
+    /// @param fullUpdate  `upserted` is the full catalogue
+    /// @param baseEpoch   epoch the delta was computed against
+    /// @param epoch       epoch after applying the delta
+    /// @param upserted    added or changed capability ids
+    /// @param removed     removed capability ids
+    /// @return `false` if a full resync is required
+    public boolean refresh(
+            final String brokerId,
+            final boolean fullUpdate,
+            final long baseEpoch,
+            final long epoch,
+            final Collection<String> upserted,
+            final Collection<String> removed
+    ) {
+        synchronized (this.writeLock) {
+            final var current = this.snapshot;
+            final var previous = current.getBroker(brokerId);
+            if (previous == null || (!fullUpdate && previous.getEpoch() != baseEpoch)) {
+                return false;
+            }
+            if (previous.getEpoch() == epoch && upserted.isEmpty() && removed.isEmpty()) {
+                // plain heartbeat, nothing to publish
+                return true;
+            }
+            final Set<String> capabilities;
+            if (fullUpdate) {
+                capabilities = Set.copyOf(upserted);
+            } else {
+                final var merged = new HashSet<>(previous.getCapabilities());
+                merged.removeAll(removed);
+                merged.addAll(upserted);
+                capabilities = merged;
+            }
+            this.snapshot = current.upsert(new BrokerRecord(previous.getEndpoint(), capabilities, epoch));
+        }
+        return true;
+    }
+
+    /// Remove a broker and all routes pointing to it.
+    ///
+    /// @param brokerId broker id
+    /// @return `true` if the broker was registered
+    public boolean deregister(final String brokerId) {
+        final BrokerRecord removed;
+        synchronized (this.writeLock) {
+            final var current = this.snapshot;
+            removed = current.getBroker(brokerId);
+            this.snapshot = current.remove(brokerId);
+        }
+        if (removed != null) {
+            LOGGER.info("broker {} deregistered", removed.getEndpoint());
+            for (final var listener : this.listeners) {
+                listener.onDeregistered(removed);
+            }
+        }
+        return removed != null;
+    }
+
+    /// Broker membership listener.
+    public interface Listener {
+
+        /// Broker registered, or re-registered with a new record.
+        default void onRegistered(final BrokerRecord record) {
+        }
+
+        /// Broker removed from routing.
+        default void onDeregistered(final BrokerRecord record) {
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.ThreadSafe;
+
+/// Phi accrual failure detector (Hayashibara et al.) of one broker.
+///
+/// Instead of a fixed timeout it learns the distribution of heartbeat
+/// inter-arrival times over a sliding window and reports `phi`, the suspicion
+/// that the broker is dead: `phi = -log10(P(next heartbeat later than now))`.
+/// `phi = 8` means roughly a one in 10^8 chance of a false eviction under the
+/// learned distribution, which adapts to each broker's own (jittered, adaptive)
+/// heartbeat interval.
+///
+/// Times passed in must come from a monotonic clock (e.g. [System#nanoTime()]
+/// in milliseconds), they are only compared with each other.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/16
+/// @since 1.0
+@ThreadSafe
+public final class PhiAccrualFailureDetector {
+
+    private final long[] intervals;
+
+    private final double minStdDevMillis;
+
+    private final long acceptablePauseMillis;
+
+    private int count;
+
+    private int cursor;
+
+    private double sum;
+
+    private double squaredSum;
+
+    private long lastHeartbeatMillis;
+
+    /// @param windowSize         inter-arrival samples kept
+    /// @param firstEstimateMillis assumed interval before any sample is known
+    /// @param minStdDevMillis    standard deviation floor, avoids over-confidence on regular beats
+    /// @param acceptablePauseMillis silence tolerated on top of the learned interval, covers
+    ///                              brokers backing their heartbeat interval off and GC pauses
+    /// @param nowMillis          time of the first heartbeat
+    public PhiAccrualFailureDetector(
+            final int windowSize,
+            final long firstEstimateMillis,
+            final double minStdDevMillis,
+            final long acceptablePauseMillis,
+            final long nowMillis
+    ) {
+        this.intervals = new long[windowSize];
+        this.minStdDevMillis = minStdDevMillis;
+        this.acceptablePauseMillis = acceptablePauseMillis;
+        this.lastHeartbeatMillis = nowMillis;
+        // bootstrap with mean = estimate, stddev = estimate / 4
+        this.add(firstEstimateMillis - firstEstimateMillis / 4);
+        this.add(firstEstimateMillis + firstEstimateMillis / 4);
+    }
+
+    /// Record a heartbeat.
+    ///
+    /// @param nowMillis arrival time
+    public synchronized void heartbeat(final long nowMillis) {
+        final var interval = nowMillis - this.lastHeartbeatMillis;
+        this.lastHeartbeatMillis = nowMillis;
+        if (interval > 0) {
+            this.add(interval);
+        }
+    }
+
+    /// Suspicion level at `nowMillis`.
+    ///
+    /// @param nowMillis evaluation time
+    /// @return phi, `0` when the heartbeat is not yet overdue
+    public synchronized double phi(final long nowMillis) {
+        final var elapsed = nowMillis - this.lastHeartbeatMillis - this.acceptablePauseMillis;
+        final var mean = this.sum / this.count;
+        final var variance = Math.max(this.squaredSum / this.count - mean * mean, 0D);
+        final var stdDev = Math.max(Math.sqrt(variance), this.minStdDevMillis);
+        // logistic approximation of the normal CDF
+        final var y = (elapsed - mean) / stdDev;
+        final var e = Math.exp(-y * (1.5976D + 0.070566D * y * y));
+        if (elapsed > mean) {
+            return -Math.log10(e / (1D + e));
+        }
+        return -Math.log10(1D - 1D / (1D + e));
+    }
+
+    public synchronized long getLastHeartbeatMillis() {
+        return this.lastHeartbeatMillis;
+    }
+
+    private void add(final long interval) {
+        if (this.count == this.intervals.length) {
+            final var evicted = this.intervals[this.cursor];
+            this.sum -= evicted;
+            this.squaredSum -= (double) evicted * evicted;
+        } else {
+            this.count++;
+        }
+        this.intervals[this.cursor] = interval;
+        this.cursor = (this.cursor + 1) % this.intervals.length;
+        this.sum += interval;
+        this.squaredSum += (double) interval * interval;
+    }
+}
@@ -0,0 +1,153 @@
+package io.polyaxis.dispatcher.registry;
+
+import io.polyaxis.api.utils.documentation.Immutable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Immutable view of the [CapabilityRegistry] at one point in time.
+///
+/// Routing reads a snapshot without any lock, each mutation produces a new snapshot
+/// which only re-allocates the capability lists it actually touches, every other
+/// list is shared with the previous snapshot.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/12
+/// @since 1.0
+@Immutable
+public final class RegistrySnapshot {
+
+    static final RegistrySnapshot EMPTY = new RegistrySnapshot(0L, Map.of(), Map.of());
+
+    private final long version;
+
+    /// capability id -> brokers exposing it
+    private final Map<String, List<BrokerEndpoint>> routes;
+
+    /// broker id -> broker record
+    private final Map<String, BrokerRecord> brokers;
+
+    private RegistrySnapshot(
+            final long version,
+            final Map<String, List<BrokerEndpoint>> routes,
+            final Map<String, BrokerRecord> brokers
+    ) {
+        this.version = version;
+        this.routes = routes;
+        this.brokers = brokers;
+    }
+
+    /// Brokers exposing `capabilityId`, empty if none.
+    ///
+    /// @param capabilityId capability id
+    /// @return immutable endpoint list
+    public List<BrokerEndpoint> lookup(final String capabilityId) {
+        final var endpoints = routes.get(capabilityId);
+        return endpoints == null ? List.of() : endpoints;
+    }
+
+    public BrokerRecord getBroker(final String brokerId) {
+        return brokers.get(brokerId);
+    }
+
+    public Collection<BrokerRecord> getBrokers() {
+        return brokers.values();
+    }
+
+    public Collection<String> getCapabilities() {
+        return routes.keySet();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /// Copy-on-write insert or replace of `record`.
+    RegistrySnapshot upsert(final BrokerRecord record) {
+        final var brokerId = record.getBrokerId();
+        final var previous = brokers.get(brokerId);
+        if (previous != null && previous.getEndpoint().equals(record.getEndpoint())
+                && previous.getCapabilities().equals(record.getCapabilities())) {
+            // routes untouched, only the record itself changes
+            final var newBrokers = new HashMap<>(brokers);
+            newBrokers.put(brokerId, record);
+            return new RegistrySnapshot(version + 1, routes, Collections.unmodifiableMap(newBrokers));
+        }
+        final var newRoutes = new HashMap<>(routes);
+        final var endpointChanged = previous != null && !previous.getEndpoint().equals(record.getEndpoint());
+        if (previous != null) {
+            for (final var capabilityId : previous.getCapabilities()) {
+                if (endpointChanged || !record.getCapabilities().contains(capabilityId)) {
+                    detach(newRoutes, capabilityId, brokerId);
+                }
+            }
+        }
+        for (final var capabilityId : record.getCapabilities()) {
+            if (previous == null || endpointChanged || !previous.getCapabilities().contains(capabilityId)) {
+                attach(newRoutes, capabilityId, record.getEndpoint());
+            }
+        }
+        final var newBrokers = new HashMap<>(brokers);
+        newBrokers.put(brokerId, record);
+        return new RegistrySnapshot(version + 1,
+                Collections.unmodifiableMap(newRoutes), Collections.unmodifiableMap(newBrokers));
+    }
+
+    /// Copy-on-write removal of `brokerId`, returns `this` if absent.
+    RegistrySnapshot remove(final String brokerId) {
+        final var previous = brokers.get(brokerId);
+        if (previous == null) {
+            return this;
+        }
+        final var newRoutes = new HashMap<>(routes);
+        for (final var capabilityId : previous.getCapabilities()) {
+            detach(newRoutes, capabilityId, brokerId);
+        }
+        final var newBrokers = new HashMap<>(brokers);
+        newBrokers.remove(brokerId);
+        return new RegistrySnapshot(version + 1,
+                Collections.unmodifiableMap(newRoutes), Collections.unmodifiableMap(newBrokers));
+    }
+
+    private static void attach(
+            final Map<String, List<BrokerEndpoint>> routes,
+            final String capabilityId,
+            final BrokerEndpoint endpoint
+    ) {
+        final var current = routes.getOrDefault(capabilityId, List.of());
+        final var updated = new ArrayList<BrokerEndpoint>(current.size() + 1);
+        for (final var item : current) {
+            if (!item.getBrokerId().equals(endpoint.getBrokerId())) {
+                updated.add(item);
+            }
+        }
+        updated.add(endpoint);
+        routes.put(capabilityId, List.copyOf(updated));
+    }
+
+    private static void detach(
+            final Map<String, List<BrokerEndpoint>> routes,
+            final String capabilityId,
+            final String brokerId
+    ) {
+        final var current = routes.get(capabilityId);
+        if (current == null) {
+            return;
+        }
+        final var updated = new ArrayList<BrokerEndpoint>(current.size());
+        for (final var item : current) {
+            if (!item.getBrokerId().equals(brokerId)) {
+                updated.add(item);
+            }
+        }
+        if (updated.isEmpty()) {
+            routes.remove(capabilityId);
+        } else {
+            routes.put(capabilityId, List.copyOf(updated));
+        }
+    }
+}
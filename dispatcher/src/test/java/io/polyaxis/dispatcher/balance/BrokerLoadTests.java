@@ -0,0 +1,73 @@
+package io.polyaxis.dispatcher.balance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [BrokerLoad] latency EWMA: seeding, read-time decay and bounded failure penalty, reported pressure.
+class BrokerLoadTests {
+
+    private static final long SEED = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void holdsSeedUntilFirstSample() {
+        final var load = load(TimeUnit.MILLISECONDS.toNanos(1));
+        assertFalse(load.isMeasured());
+        assertEquals(SEED, load.getEwmaNanos());
+        load.observe(TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(load.isMeasured());
+        assertTrue(load.getEwmaNanos() <= TimeUnit.MILLISECONDS.toNanos(5));
+    }
+
+    @Test
+    void peakReplacesAverage() {
+        final var load = load(TimeUnit.SECONDS.toNanos(10));
+        load.observe(TimeUnit.MILLISECONDS.toNanos(5));
+        load.observe(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(load.getEwmaNanos() > TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    void decaysWithoutSamples() throws InterruptedException {
+        final var load = load(TimeUnit.MILLISECONDS.toNanos(1));
+        load.observe(TimeUnit.SECONDS.toNanos(1));
+        Thread.sleep(20L);
+        assertTrue(load.getEwmaNanos() < TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(load.getEwmaNanos() >= 1D);
+    }
+
+    @Test
+    void failurePenaltyIsBounded() {
+        final var load = load(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 100; i++) {
+            load.observeFailure(0L);
+        }
+        assertTrue(load.getEwmaNanos() <= TimeUnit.SECONDS.toNanos(10));
+        assertTrue(load.getEwmaNanos() >= TimeUnit.MILLISECONDS.toNanos(900));
+    }
+
+    @Test
+    void queueTimeBetweenReportsAddsPressure() throws InterruptedException {
+        final var load = load(TimeUnit.SECONDS.toNanos(10));
+        load.report(2, TimeUnit.SECONDS.toNanos(100));
+        // first report only sets the baseline
+        assertEquals(2, load.getPressure());
+
+        Thread.sleep(20L);
+        // a full second queued within ~20 ms: dozens of invocations waited meanwhile
+        load.report(2, TimeUnit.SECONDS.toNanos(101));
+        assertTrue(load.getPressure() > 10);
+
+        // counters reset by a broker restart
+        load.report(3, 0L);
+        assertEquals(3, load.getPressure());
+    }
+
+    private static BrokerLoad load(final long decayNanos) {
+        return new BrokerLoad(decayNanos, SEED, new VegasLimit(20, 4, 1000));
+    }
+}
@@ -0,0 +1,88 @@
+package io.polyaxis.dispatcher.balance;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [VegasLimit] growth, shrinkage and bounds.
+class VegasLimitTests {
+
+    private static final long NO_LOAD = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void initialLimitIsClamped() {
+        assertEquals(50, new VegasLimit(100, 4, 50).get());
+        assertEquals(4, new VegasLimit(1, 4, 50).get());
+        assertEquals(20, new VegasLimit(20, 4, 50).get());
+    }
+
+    @Test
+    void firstSampleOnlyLearnsNoLoadLatency() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onSample(NO_LOAD, 20);
+        assertEquals(20, limit.get());
+    }
+
+    @Test
+    void growsWithoutQueueing() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onSample(NO_LOAD, 20);
+        limit.onSample(NO_LOAD, 20);
+        assertTrue(limit.get() > 20);
+    }
+
+    @Test
+    void shrinksWhenQueueing() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onSample(NO_LOAD, 20);
+        limit.onSample(NO_LOAD * 10, 20);
+        assertTrue(limit.get() < 20);
+    }
+
+    @Test
+    void ignoresSamplesOfUnderusedLimit() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onSample(NO_LOAD, 20);
+        limit.onSample(NO_LOAD, 9);
+        limit.onSample(NO_LOAD * 10, 9);
+        assertEquals(20, limit.get());
+    }
+
+    @Test
+    void ignoresNonPositiveSamples() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onSample(NO_LOAD, 20);
+        limit.onSample(0L, 20);
+        limit.onSample(-1L, 20);
+        assertEquals(20, limit.get());
+    }
+
+    @Test
+    void staysWithinBounds() {
+        final var limit = new VegasLimit(20, 4, 30);
+        limit.onSample(NO_LOAD, 20);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(NO_LOAD, limit.get());
+        }
+        assertEquals(30, limit.get());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(NO_LOAD * 10, limit.get());
+            assertTrue(limit.get() >= 4);
+        }
+        assertTrue(limit.get() < 30);
+    }
+
+    @Test
+    void dropBacksOffMultiplicatively() {
+        final var limit = new VegasLimit(20, 4, 1000);
+        limit.onDrop();
+        assertEquals(18, limit.get());
+        for (int i = 0; i < 100; i++) {
+            limit.onDrop();
+        }
+        assertEquals(4, limit.get());
+    }
+}
@@ -0,0 +1,141 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.google.protobuf.Any;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [HedgedCall] hedging a silent primary, picking the winner and relaying demand to it.
+class HedgedCallTests {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static final long NEVER = TimeUnit.MINUTES.toNanos(10);
+
+    /// hedge streams asked for
+    private final AtomicInteger hedges = new AtomicInteger();
+
+    @Test
+    void primaryAnsweringInTimeIsNotHedged() {
+        final var call = subscribe(hedged(responses("primary", 2), this.counted(() -> responses("hedge", 2)), NEVER),
+                Long.MAX_VALUE);
+
+        call.assertCompleted().assertItems(response("primary", 0), response("primary", 1));
+        assertEquals(0, this.hedges.get());
+    }
+
+    @Test
+    void silentPrimaryLosesToHedge() {
+        final var cancelled = new AtomicBoolean();
+        final var primary = Multi.createFrom().<BrokerInvokeResp>nothing()
+                .onCancellation().invoke(() -> cancelled.set(true));
+        final var call = subscribe(hedged(primary, this.counted(() -> responses("hedge", 2)), 0L), Long.MAX_VALUE);
+
+        call.awaitCompletion(TIMEOUT).assertItems(response("hedge", 0), response("hedge", 1));
+        assertEquals(1, this.hedges.get());
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    void demandIsRelayedToWinner() {
+        final var requested = new AtomicLong();
+        final var primary = responses("primary", 100).onRequest().invoke(requested::addAndGet);
+        final var call = subscribe(hedged(primary, this.counted(() -> null), NEVER), 0L);
+        // the probe for the first response only
+        assertEquals(1L, requested.get());
+        call.assertHasNotReceivedAnyItem();
+
+        call.request(3L);
+        assertEquals(3, call.getItems().size());
+        assertEquals(3L, requested.get());
+        call.request(Long.MAX_VALUE);
+        call.assertCompleted();
+        assertEquals(100, call.getItems().size());
+    }
+
+    @Test
+    void failureBeforeWinnerWaitsForOtherStream() throws InterruptedException {
+        final var primary = new AtomicReference<MultiEmitter<? super BrokerInvokeResp>>();
+        final var hedge = new AtomicReference<MultiEmitter<? super BrokerInvokeResp>>();
+        final var hedged = new CountDownLatch(1);
+        final Supplier<Multi<BrokerInvokeResp>> held = () -> Multi.createFrom().emitter(emitter -> {
+            hedge.set(emitter);
+            hedged.countDown();
+        });
+        final var call = subscribe(hedged(Multi.createFrom().emitter(primary::set), this.counted(held), 0L),
+                Long.MAX_VALUE);
+        assertTrue(hedged.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+
+        primary.get().fail(new IllegalStateException("primary"));
+        call.assertNotTerminated();
+        hedge.get().emit(response("hedge", 0)).complete();
+        call.awaitCompletion(TIMEOUT).assertItems(response("hedge", 0));
+    }
+
+    @Test
+    void lastFailingStreamFailsCall() {
+        final var call = subscribe(hedged(Multi.createFrom().failure(new IllegalStateException("primary")),
+                this.counted(() -> null), NEVER), Long.MAX_VALUE);
+
+        call.assertFailedWith(IllegalStateException.class, "primary");
+    }
+
+    @Test
+    void cancellationCancelsBothStreams() throws InterruptedException {
+        final var cancelled = new CountDownLatch(2);
+        final var hedged = new CountDownLatch(1);
+        final Supplier<Multi<BrokerInvokeResp>> silent = () -> Multi.createFrom().<BrokerInvokeResp>nothing()
+                .onCancellation().invoke(cancelled::countDown);
+        final var call = subscribe(hedged(silent.get(), this.counted(() -> {
+            hedged.countDown();
+            return silent.get();
+        }), 0L), Long.MAX_VALUE);
+        assertTrue(hedged.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+
+        call.cancel();
+        // the hedge may still be subscribing, it is cancelled as soon as it is
+        assertTrue(cancelled.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS));
+        call.assertNotTerminated();
+    }
+
+    private Supplier<Multi<BrokerInvokeResp>> counted(final Supplier<Multi<BrokerInvokeResp>> hedge) {
+        return () -> {
+            this.hedges.incrementAndGet();
+            return hedge.get();
+        };
+    }
+
+    private static Multi<BrokerInvokeResp> hedged(
+            final Multi<BrokerInvokeResp> primary,
+            final Supplier<Multi<BrokerInvokeResp>> hedge,
+            final long delayNanos
+    ) {
+        return Multi.createFrom().publisher(subscriber -> new HedgedCall(subscriber).start(primary, hedge, delayNanos));
+    }
+
+    private static Multi<BrokerInvokeResp> responses(final String label, final int count) {
+        return Multi.createFrom().range(0, count).map(index -> response(label, index));
+    }
+
+    private static BrokerInvokeResp response(final String label, final int index) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl(label + "-" + index)).build();
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream, final long n) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(n));
+    }
+}
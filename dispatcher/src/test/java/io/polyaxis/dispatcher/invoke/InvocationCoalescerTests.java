@@ -0,0 +1,136 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import io.smallrye.mutiny.subscription.MultiEmitter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [InvocationCoalescer] sharing before the first response, demand relay and cancellation.
+class InvocationCoalescerTests {
+
+    private static final InvocationKey KEY = new InvocationKey("embed", "type", ByteString.copyFromUtf8("arguments"));
+
+    private final InvocationCoalescer coalescer = new InvocationCoalescer(Set.of("embed"));
+
+    /// broker streams started
+    private final AtomicInteger started = new AtomicInteger();
+
+    @Test
+    void joinersBeforeFirstResponseShareOneStream() {
+        final var upstream = this.counted(() -> responses(3));
+        final var first = subscribe(this.coalescer.coalesce(KEY, upstream), 0L);
+        final var second = subscribe(this.coalescer.coalesce(KEY, upstream), 0L);
+        assertEquals(1, this.coalescer.getOpenFlights());
+
+        first.request(Long.MAX_VALUE);
+        second.request(Long.MAX_VALUE);
+        first.assertCompleted().assertItems(response(0), response(1), response(2));
+        second.assertCompleted().assertItems(response(0), response(1), response(2));
+        assertEquals(1, this.started.get());
+        assertEquals(0, this.coalescer.getOpenFlights());
+    }
+
+    @Test
+    void slowestSubscriberBoundsUpstreamDemand() {
+        final var requested = new AtomicLong();
+        final var upstream = this.counted(() -> responses(100).onRequest().invoke(requested::addAndGet));
+        final var fast = subscribe(this.coalescer.coalesce(KEY, upstream), 0L);
+        final var slow = subscribe(this.coalescer.coalesce(KEY, upstream), 0L);
+
+        fast.request(50L);
+        assertEquals(0L, requested.get());
+        slow.request(2L);
+        assertEquals(2L, requested.get());
+        assertEquals(2, fast.getItems().size());
+        assertEquals(2, slow.getItems().size());
+
+        slow.request(Long.MAX_VALUE);
+        // never more than the prefetch window ahead of the slowest subscriber
+        assertTrue(requested.get() <= 50L);
+        assertEquals(50, fast.getItems().size());
+        assertEquals(50, slow.getItems().size());
+        fast.request(50L);
+        fast.assertCompleted();
+        slow.assertCompleted();
+        assertEquals(1, this.started.get());
+    }
+
+    @Test
+    void invocationAfterFirstResponseStartsOwnFlight() {
+        final var emitter = new AtomicReference<MultiEmitter<? super BrokerInvokeResp>>();
+        final var upstream = this.counted(() -> Multi.createFrom().emitter(emitter::set));
+        final var first = subscribe(this.coalescer.coalesce(KEY, upstream), Long.MAX_VALUE);
+        emitter.get().emit(response(0));
+        first.assertItems(response(0));
+        assertEquals(0, this.coalescer.getOpenFlights());
+
+        final var late = subscribe(this.coalescer.coalesce(KEY, upstream), Long.MAX_VALUE);
+        assertEquals(2, this.started.get());
+        late.assertHasNotReceivedAnyItem();
+        emitter.get().emit(response(1)).complete();
+        late.assertCompleted().assertItems(response(1));
+        first.assertNotTerminated();
+    }
+
+    @Test
+    void upstreamCancelledOnceEverySubscriberLeft() {
+        final var cancelled = new AtomicBoolean();
+        final var upstream = this.counted(() -> Multi.createFrom().<BrokerInvokeResp>nothing()
+                .onCancellation().invoke(() -> cancelled.set(true)));
+        final var first = subscribe(this.coalescer.coalesce(KEY, upstream), 1L);
+        final var second = subscribe(this.coalescer.coalesce(KEY, upstream), 1L);
+
+        first.cancel();
+        assertFalse(cancelled.get());
+        assertEquals(1, this.coalescer.getOpenFlights());
+        second.cancel();
+        assertTrue(cancelled.get());
+        assertEquals(0, this.coalescer.getOpenFlights());
+    }
+
+    @Test
+    void throwingUpstreamFailsFlightAndIsRetried() {
+        final var failed = subscribe(this.coalescer.coalesce(KEY, this.counted(() -> {
+            throw new IllegalStateException("route");
+        })), 1L);
+        failed.assertFailedWith(IllegalStateException.class, "route");
+        assertEquals(0, this.coalescer.getOpenFlights());
+
+        final var retried = subscribe(this.coalescer.coalesce(KEY, this.counted(() -> responses(1))), 1L);
+        retried.assertCompleted().assertItems(response(0));
+        assertEquals(2, this.started.get());
+    }
+
+    private Supplier<Multi<BrokerInvokeResp>> counted(final Supplier<Multi<BrokerInvokeResp>> upstream) {
+        return () -> {
+            this.started.incrementAndGet();
+            return upstream.get();
+        };
+    }
+
+    private static Multi<BrokerInvokeResp> responses(final int count) {
+        return Multi.createFrom().range(0, count).map(InvocationCoalescerTests::response);
+    }
+
+    private static BrokerInvokeResp response(final int index) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl("response-" + index)).build();
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream, final long n) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(n));
+    }
+}
@@ -0,0 +1,95 @@
+package io.polyaxis.dispatcher.invoke;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import io.polyaxis.network.broker.BrokerInvokeResp;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.helpers.test.AssertSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [ResultCache] storing completed streams only, size bound and expiry.
+class ResultCacheTests {
+
+    private static final String CAPABILITY = "embed";
+
+    private final ResultCache cache = new ResultCache(Map.of(CAPABILITY, 60_000L), 1L << 20, 1 << 16);
+
+    @Test
+    void replaysCompletedStream() {
+        assertNull(this.cache.get(key("a")));
+        subscribe(this.cache.record(key("a"), responses(2))).assertCompleted();
+
+        // looked up by an equal key, not the recorded instance
+        subscribe(this.cache.get(key("a"))).assertCompleted().assertItems(response(0), response(1));
+        assertNull(this.cache.get(key("b")));
+    }
+
+    @Test
+    void failedStreamIsNotStored() {
+        final var upstream = responses(2).onCompletion().failWith(new IllegalStateException("broker"));
+        subscribe(this.cache.record(key("a"), upstream)).assertFailedWith(IllegalStateException.class, "broker");
+
+        assertNull(this.cache.get(key("a")));
+    }
+
+    @Test
+    void cancelledStreamIsNotStored() {
+        final var stream = subscribe(this.cache.record(key("a"),
+                Multi.createFrom().emitter(emitter -> emitter.emit(response(0)))));
+        stream.assertItems(response(0)).cancel();
+
+        assertNull(this.cache.get(key("a")));
+    }
+
+    @Test
+    void oversizedStreamIsRelayedButNotStored() {
+        final var cache = new ResultCache(Map.of(CAPABILITY, 60_000L), 1L << 20,
+                key("a").weight() + response(0).getSerializedSize());
+        subscribe(cache.record(key("a"), responses(2))).assertCompleted().assertItems(response(0), response(1));
+
+        assertNull(cache.get(key("a")));
+    }
+
+    @Test
+    void entryExpiresAfterTtl() throws InterruptedException {
+        final var cache = new ResultCache(Map.of(CAPABILITY, 20L), 1L << 20, 1 << 16);
+        subscribe(cache.record(key("a"), responses(1))).assertCompleted();
+        Thread.sleep(50L);
+
+        assertNull(cache.get(key("a")));
+    }
+
+    @Test
+    void uncachedCapabilityIsRelayedAsIs() {
+        final var upstream = responses(1);
+        final var other = new InvocationKey("generate", "type", ByteString.copyFromUtf8("a"));
+
+        assertTrue(this.cache.isCached(CAPABILITY));
+        assertFalse(this.cache.isCached("generate"));
+        assertFalse(ResultCache.DISABLED.isCached(CAPABILITY));
+        assertSame(upstream, this.cache.record(other, upstream));
+    }
+
+    private static InvocationKey key(final String arguments) {
+        return new InvocationKey(CAPABILITY, "type", ByteString.copyFromUtf8(arguments));
+    }
+
+    private static Multi<BrokerInvokeResp> responses(final int count) {
+        return Multi.createFrom().range(0, count).map(ResultCacheTests::response);
+    }
+
+    private static BrokerInvokeResp response(final int index) {
+        return BrokerInvokeResp.newBuilder().setIvkRes(Any.newBuilder().setTypeUrl("response-" + index)).build();
+    }
+
+    private static AssertSubscriber<BrokerInvokeResp> subscribe(final Multi<BrokerInvokeResp> stream) {
+        return stream.subscribe().withSubscriber(AssertSubscriber.create(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,92 @@
+package io.polyaxis.dispatcher.registry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [CapabilityRegistry] catalogue refreshes: deltas only on their base epoch,
+/// full updates from any epoch, membership listeners.
+class CapabilityRegistryTests {
+
+    private static final BrokerEndpoint BROKER = BrokerEndpoint.of("broker-1", "10.0.0.1", 20880);
+
+    private final CapabilityRegistry registry = new CapabilityRegistry();
+
+    @Test
+    void appliesDeltaOnItsBaseEpoch() {
+        this.registry.register(BROKER, Set.of("generate", "embed"), 1L);
+
+        assertTrue(this.registry.refresh("broker-1", false, 1L, 2L, Set.of("rerank"), Set.of("generate")));
+        assertEquals(List.of(), this.registry.lookup("generate"));
+        assertEquals(List.of(BROKER), this.registry.lookup("embed"));
+        assertEquals(List.of(BROKER), this.registry.lookup("rerank"));
+        assertEquals(2L, this.registry.snapshot().getBroker("broker-1").getEpoch());
+    }
+
+    @Test
+    void deltaOnDivergedEpochRequiresResync() {
+        this.registry.register(BROKER, Set.of("generate"), 3L);
+
+        // a refresh was lost, the delta from epoch 4 does not apply on top of epoch 3
+        assertFalse(this.registry.refresh("broker-1", false, 4L, 5L, Set.of("embed"), Set.of()));
+        assertEquals(List.of(), this.registry.lookup("embed"));
+        assertEquals(3L, this.registry.snapshot().getBroker("broker-1").getEpoch());
+    }
+
+    @Test
+    void fullUpdateAppliesFromAnyEpoch() {
+        this.registry.register(BROKER, Set.of("generate"), 3L);
+
+        assertTrue(this.registry.refresh("broker-1", true, 0L, 9L, Set.of("embed"), Set.of()));
+        assertEquals(List.of(), this.registry.lookup("generate"));
+        assertEquals(List.of(BROKER), this.registry.lookup("embed"));
+        assertEquals(9L, this.registry.snapshot().getBroker("broker-1").getEpoch());
+    }
+
+    @Test
+    void unknownBrokerRequiresResync() {
+        assertFalse(this.registry.refresh("broker-1", true, 0L, 1L, Set.of("generate"), Set.of()));
+        assertEquals(List.of(), this.registry.lookup("generate"));
+    }
+
+    @Test
+    void heartbeatKeepsSnapshot() {
+        this.registry.register(BROKER, Set.of("generate"), 3L);
+        final var snapshot = this.registry.snapshot();
+
+        assertTrue(this.registry.refresh("broker-1", false, 3L, 3L, Set.of(), Set.of()));
+        assertSame(snapshot, this.registry.snapshot());
+    }
+
+    @Test
+    void notifiesMembershipChanges() {
+        final var events = new CopyOnWriteArrayList<String>();
+        this.registry.addListener(new CapabilityRegistry.Listener() {
+
+            @Override
+            public void onRegistered(final BrokerRecord record) {
+                events.add("registered " + record.getBrokerId());
+            }
+
+            @Override
+            public void onDeregistered(final BrokerRecord record) {
+                events.add("deregistered " + record.getBrokerId());
+            }
+        });
+        this.registry.register(BROKER, Set.of("generate"), 1L);
+        // catalogue refreshes are not membership changes
+        this.registry.refresh("broker-1", false, 1L, 2L, Set.of("embed"), Set.of());
+
+        assertTrue(this.registry.deregister("broker-1"));
+        assertFalse(this.registry.deregister("broker-1"));
+        assertEquals(List.of("registered broker-1", "deregistered broker-1"), events);
+        assertEquals(List.of(), this.registry.lookup("generate"));
+    }
+}
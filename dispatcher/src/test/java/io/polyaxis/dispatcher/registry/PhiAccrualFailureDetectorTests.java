@@ -0,0 +1,69 @@
+package io.polyaxis.dispatcher.registry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [PhiAccrualFailureDetector] suspicion over regular and missing heartbeats.
+class PhiAccrualFailureDetectorTests {
+
+    private static final long INTERVAL = 1_000L;
+
+    @Test
+    void suspicionGrowsWithSilence() {
+        final var detector = regular(0L);
+        final var last = detector.getLastHeartbeatMillis();
+        final var early = detector.phi(last + INTERVAL / 2);
+        final var due = detector.phi(last + INTERVAL);
+        final var late = detector.phi(last + INTERVAL * 2);
+        assertTrue(early < 1D);
+        assertTrue(early <= due);
+        assertTrue(due < late);
+        assertTrue(detector.phi(last + INTERVAL * 10) > 8D);
+    }
+
+    @Test
+    void heartbeatClearsSuspicion() {
+        final var detector = regular(0L);
+        final var silent = detector.getLastHeartbeatMillis() + INTERVAL * 10;
+        assertTrue(detector.phi(silent) > 8D);
+        detector.heartbeat(silent);
+        assertEquals(silent, detector.getLastHeartbeatMillis());
+        assertTrue(detector.phi(silent + INTERVAL / 2) < 1D);
+    }
+
+    @Test
+    void acceptablePauseDefersSuspicion() {
+        final var strict = regular(0L);
+        final var lenient = regular(5_000L);
+        final var now = strict.getLastHeartbeatMillis() + INTERVAL * 5;
+        assertTrue(strict.phi(now) > 8D);
+        assertTrue(lenient.phi(now) < 1D);
+    }
+
+    @Test
+    void firstEstimateAppliesBeforeAnySample() {
+        final var detector = new PhiAccrualFailureDetector(100, INTERVAL, 100D, 0L, 0L);
+        assertTrue(detector.phi(INTERVAL / 2) < 1D);
+        assertTrue(detector.phi(INTERVAL * 10) > 8D);
+    }
+
+    @Test
+    void ignoresNonIncreasingHeartbeats() {
+        final var detector = regular(0L);
+        final var last = detector.getLastHeartbeatMillis();
+        final var before = detector.phi(last + INTERVAL);
+        detector.heartbeat(last);
+        assertEquals(before, detector.phi(last + INTERVAL));
+    }
+
+    /// detector fed twenty heartbeats `INTERVAL` apart
+    private static PhiAccrualFailureDetector regular(final long acceptablePauseMillis) {
+        final var detector = new PhiAccrualFailureDetector(100, INTERVAL, 100D, acceptablePauseMillis, 0L);
+        for (int i = 1; i <= 20; i++) {
+            detector.heartbeat(i * INTERVAL);
+        }
+        return detector;
+    }
+}
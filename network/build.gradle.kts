@@ -34,6 +34,8 @@ dependencies {
     api(libs.javassist)
     // use default google rpc proto(s)
     api(libs.protobuf.java)
+    // zstd payload compression, falls back to gzip where the native library is unavailable
+    implementation(libs.zstd)
     // used for compiling fat dubbo jar
     dubboCompiler("org.apache.dubbo:dubbo-compiler:3.4.0.mutiny")
     dubboCompiler("com.github.spullara.mustache.java:compiler:0.9.14")
@@ -42,6 +44,13 @@ dependencies {
     dubboCompiler("io.grpc:grpc-protobuf:1.72.0")
     // only compile mutiny
     compileOnly(libs.mutiny)
+    /* test */
+    testImplementation(libs.junit.jupiter)
+    testRuntimeOnly(libs.junit.platform.launcher)
+}
+
+tasks.test {
+    useJUnitPlatform()
 }
 
 /* ⇢ build dubbo fat jar lib */
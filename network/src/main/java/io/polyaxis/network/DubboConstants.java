@@ -12,6 +12,39 @@ public class DubboConstants {
 
     public static final Integer SERVER_DEFAULT_OFFSET = 1000;
 
+    /// `BrokerService.setPlugin`
+    public static final String METHOD_SET_PLUGIN = "setPlugin";
+
+    /// `BrokerService.invokeCapability`
+    public static final String METHOD_INVOKE_CAPABILITY = "invokeCapability";
+
+    /// `BrokerService.ping`
+    public static final String METHOD_PING = "ping";
+
+    /// `DispatcherService.registerBroker`
+    public static final String METHOD_REGISTER_BROKER = "registerBroker";
+
+    /// `DispatcherService.refreshBroker`
+    public static final String METHOD_REFRESH_BROKER = "refreshBroker";
+
+    public static final String RETRY_DEFAULT_BUDGET_RATIO = "0.1";
+
+    public static final Integer RETRY_DEFAULT_BUDGET_BURST = 10;
+
+    public static final String TRANSPORT_DEFAULT_NATIVE = "nio";
+
+    /// `network.compression.accept` default, zstd is dropped where its native library is unavailable
+    public static final String COMPRESSION_DEFAULT_ACCEPT = "gzip,zstd";
+
+    /// zstd compression level of payloads
+    public static final Integer COMPRESSION_ZSTD_LEVEL = 3;
+
+    /// smallest HTTP/2 `SETTINGS_MAX_FRAME_SIZE` (RFC 9113 §6.5.2)
+    public static final Integer TRANSPORT_MIN_FRAME_SIZE = 1 << 14;
+
+    /// largest HTTP/2 `SETTINGS_MAX_FRAME_SIZE` (RFC 9113 §6.5.2)
+    public static final Integer TRANSPORT_MAX_FRAME_SIZE = (1 << 24) - 1;
+
     /// Dubbo properties key
     public enum Properties {
         ;
@@ -26,5 +59,48 @@ public class DubboConstants {
 
         /// `network.dubbo.server.tls.actives`
         public static final String SERVER_TLS_ACTIVES = SERVER_KEY + "tls.actives";
+
+        private static final String TRANSPORT_KEY = "network.dubbo.transport.";
+
+        /// `network.dubbo.transport.native`, `nio` or `epoll`
+        public static final String TRANSPORT_NATIVE = TRANSPORT_KEY + "native";
+
+        /// `network.dubbo.transport.io.threads`, netty event loop threads
+        public static final String TRANSPORT_IO_THREADS = TRANSPORT_KEY + "io.threads";
+
+        /// `network.dubbo.transport.worker.threads`, dubbo business threads
+        public static final String TRANSPORT_WORKER_THREADS = TRANSPORT_KEY + "worker.threads";
+
+        /// `network.dubbo.transport.buffer.direct`, prefer pooled direct over pooled heap buffers
+        public static final String TRANSPORT_BUFFER_DIRECT = TRANSPORT_KEY + "buffer.direct";
+
+        /// `network.dubbo.transport.buffer.arenas`, arenas of the pooled buffer allocator
+        public static final String TRANSPORT_BUFFER_ARENAS = TRANSPORT_KEY + "buffer.arenas";
+
+        /// `network.dubbo.transport.max.streams`, HTTP/2 max concurrent streams per connection
+        public static final String TRANSPORT_MAX_STREAMS = TRANSPORT_KEY + "max.streams";
+
+        /// `network.dubbo.transport.max.frame`, HTTP/2 max frame size (bytes)
+        public static final String TRANSPORT_MAX_FRAME = TRANSPORT_KEY + "max.frame";
+
+        /// `network.dubbo.transport.initial.window`, HTTP/2 initial flow control window (bytes)
+        public static final String TRANSPORT_INITIAL_WINDOW = TRANSPORT_KEY + "initial.window";
+
+        private static final String COMPRESSION_KEY = "network.compression.";
+
+        /// `network.compression.methods`, comma separated `method:codec:minBytes` rules, e.g.
+        /// `invokeCapability:zstd:8192`, methods without a rule are never compressed
+        public static final String COMPRESSION_METHODS = COMPRESSION_KEY + "methods";
+
+        /// `network.compression.accept`, comma separated codecs this side decodes
+        public static final String COMPRESSION_ACCEPT = COMPRESSION_KEY + "accept";
+
+        private static final String RETRY_KEY = "network.retry.";
+
+        /// `network.retry.budget.ratio`, retry tokens earned per successful call
+        public static final String RETRY_BUDGET_RATIO = RETRY_KEY + "budget.ratio";
+
+        /// `network.retry.budget.burst`, retry tokens the budget holds at most
+        public static final String RETRY_BUDGET_BURST = RETRY_KEY + "budget.burst";
     }
 }
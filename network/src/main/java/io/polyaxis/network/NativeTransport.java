@@ -0,0 +1,42 @@
+package io.polyaxis.network;
+
+/// Socket transport of the Dubbo netty event loops, chosen by `network.dubbo.transport.native`.
+///
+/// Native transports are opt-in and Linux only: when the native library is
+/// missing or the platform does not support it, Dubbo falls back to NIO.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/29
+/// @since 1.0
+public enum NativeTransport {
+
+    /// JDK selector, available everywhere
+    NIO("nio"),
+
+    /// Linux epoll
+    EPOLL("epoll");
+
+    private final String key;
+
+    NativeTransport(final String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return this.key;
+    }
+
+    /// Resolve transport by key, e.g. `epoll`.
+    ///
+    /// @param key transport key
+    /// @return transport
+    /// @throws IllegalArgumentException if `key` is unknown
+    public static NativeTransport of(final String key) {
+        for (final var transport : values()) {
+            if (transport.key.equalsIgnoreCase(key)) {
+                return transport;
+            }
+        }
+        throw new IllegalArgumentException("unknown native transport: " + key);
+    }
+}
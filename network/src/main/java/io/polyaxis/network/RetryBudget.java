@@ -0,0 +1,74 @@
+package io.polyaxis.network;
+
+import org.apache.dubbo.rpc.TriRpcStatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Token bucket capping retries to a fraction of successful calls.
+///
+/// Every successful call deposits `network.retry.budget.ratio` of a token,
+/// every retry withdraws a whole one, the bucket holds at most
+/// `network.retry.budget.burst` tokens. During a partial outage successes dry
+/// up, the bucket drains and callers fail fast instead of multiplying the load
+/// on what capacity is left.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/31
+/// @since 1.0
+public final class RetryBudget {
+
+    /// milli tokens per token
+    private static final long UNIT = 1000L;
+
+    private final long deposit;
+
+    private final long capacity;
+
+    private final AtomicLong balance;
+
+    public RetryBudget(final double ratio, final int burst) {
+        this.deposit = Math.max(0L, Math.round(ratio * UNIT));
+        this.capacity = Math.max(1L, burst) * UNIT;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    /// Budget configured by the `network.retry.budget.*` properties.
+    ///
+    /// @return retry budget
+    public static RetryBudget fromProperties() {
+        return new RetryBudget(
+                Double.parseDouble(System.getProperty(DubboConstants.Properties.RETRY_BUDGET_RATIO,
+                        DubboConstants.RETRY_DEFAULT_BUDGET_RATIO)),
+                Integer.getInteger(DubboConstants.Properties.RETRY_BUDGET_BURST,
+                        DubboConstants.RETRY_DEFAULT_BUDGET_BURST));
+    }
+
+    /// a call succeeded
+    public void onSuccess() {
+        this.balance.updateAndGet(current -> Math.min(this.capacity, current + this.deposit));
+    }
+
+    /// Withdraw one retry.
+    ///
+    /// @return `false` if the budget is exhausted
+    public boolean tryRetry() {
+        while (true) {
+            final var current = this.balance.get();
+            if (current < UNIT) {
+                return false;
+            }
+            if (this.balance.compareAndSet(current, current - UNIT)) {
+                return true;
+            }
+        }
+    }
+
+    /// Whether `failure` is safe to retry: the provider was unreachable, so the
+    /// call did not run there.
+    ///
+    /// @param failure call failure
+    /// @return `true` if retryable
+    public static boolean isRetryable(final Throwable failure) {
+        return TriRpcStatus.getStatus(failure).code == TriRpcStatus.Code.UNAVAILABLE;
+    }
+}
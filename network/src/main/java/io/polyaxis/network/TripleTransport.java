@@ -0,0 +1,205 @@
+package io.polyaxis.network;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
+import org.apache.dubbo.common.constants.CommonConstants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.nested.TripleConfig;
+
+/// Tuning of the Dubbo triple (`tri://`) transport, read from the
+/// `network.dubbo.transport.*` properties.
+///
+/// Every setting is optional, an unset one keeps the Dubbo default. Settings are
+/// parsed and range checked once by [#fromProperties()], so a malformed value
+/// fails the startup instead of silently falling back to the default.
+///
+/// The [NativeTransport] is switched through Dubbo's `netty.epoll.enable`
+/// system property. Dubbo reads it whenever it creates event loops, for servers
+/// and consumers alike, and falls back to NIO where epoll is unavailable.
+///
+/// The buffer settings are handed to Netty's pooled allocator as its own system
+/// properties. Netty reads them once, when the allocator initializes, so they
+/// only take effect if nothing touched Netty before the protocol is built and
+/// never override an explicit `-Dio.netty.*` flag. [#protocol(int)] reads the
+/// effective allocator settings back and warns when they differ, pass the
+/// `-Dio.netty.*` flags to the JVM where that happens.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/28
+/// @since 1.0
+public final class TripleTransport {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TripleTransport.class);
+
+    /// Dubbo switch between netty epoll and NIO event loops
+    private static final String DUBBO_EPOLL_ENABLE = "netty.epoll.enable";
+
+    private static final String NETTY_NO_PREFER_DIRECT = "io.netty.noPreferDirect";
+
+    private static final String NETTY_DIRECT_ARENAS = "io.netty.allocator.numDirectArenas";
+
+    private static final String NETTY_HEAP_ARENAS = "io.netty.allocator.numHeapArenas";
+
+    private final NativeTransport transport;
+
+    private final Integer ioThreads;
+
+    private final Integer workerThreads;
+
+    private final Boolean directBuffers;
+
+    private final Integer bufferArenas;
+
+    private final Integer maxStreams;
+
+    private final Integer maxFrame;
+
+    private final Integer initialWindow;
+
+    private TripleTransport(
+            final NativeTransport transport,
+            final Integer ioThreads,
+            final Integer workerThreads,
+            final Boolean directBuffers,
+            final Integer bufferArenas,
+            final Integer maxStreams,
+            final Integer maxFrame,
+            final Integer initialWindow
+    ) {
+        this.transport = transport;
+        this.ioThreads = ioThreads;
+        this.workerThreads = workerThreads;
+        this.directBuffers = directBuffers;
+        this.bufferArenas = bufferArenas;
+        this.maxStreams = maxStreams;
+        this.maxFrame = maxFrame;
+        this.initialWindow = initialWindow;
+    }
+
+    /// Read and validate the transport settings.
+    ///
+    /// @return transport settings
+    /// @throws IllegalArgumentException if a setting is malformed or out of range
+    public static TripleTransport fromProperties() {
+        final var transport = NativeTransport.of(System.getProperty(DubboConstants.Properties.TRANSPORT_NATIVE,
+                DubboConstants.TRANSPORT_DEFAULT_NATIVE));
+        return new TripleTransport(
+                transport,
+                integer(DubboConstants.Properties.TRANSPORT_IO_THREADS, 1, Integer.MAX_VALUE),
+                integer(DubboConstants.Properties.TRANSPORT_WORKER_THREADS, 1, Integer.MAX_VALUE),
+                bool(DubboConstants.Properties.TRANSPORT_BUFFER_DIRECT),
+                integer(DubboConstants.Properties.TRANSPORT_BUFFER_ARENAS, 0, Integer.MAX_VALUE),
+                integer(DubboConstants.Properties.TRANSPORT_MAX_STREAMS, 1, Integer.MAX_VALUE),
+                integer(DubboConstants.Properties.TRANSPORT_MAX_FRAME,
+                        DubboConstants.TRANSPORT_MIN_FRAME_SIZE, DubboConstants.TRANSPORT_MAX_FRAME_SIZE),
+                integer(DubboConstants.Properties.TRANSPORT_INITIAL_WINDOW, 1, Integer.MAX_VALUE));
+    }
+
+    /// Build the triple [ProtocolConfig] listening on `port` with these settings.
+    ///
+    /// @param port listening port
+    /// @return protocol config
+    public ProtocolConfig protocol(final int port) {
+        this.applyTransport();
+        this.applyAllocator();
+        final var protocol = new ProtocolConfig(CommonConstants.TRIPLE, port);
+        if (this.ioThreads != null) {
+            protocol.setIothreads(this.ioThreads);
+        }
+        if (this.workerThreads != null) {
+            protocol.setThreads(this.workerThreads);
+        }
+        if (this.maxStreams != null || this.maxFrame != null || this.initialWindow != null) {
+            final var triple = new TripleConfig();
+            triple.setMaxConcurrentStreams(this.maxStreams);
+            triple.setMaxFrameSize(this.maxFrame);
+            triple.setInitialWindowSize(this.initialWindow);
+            protocol.setTriple(triple);
+        }
+        return protocol;
+    }
+
+    private void applyTransport() {
+        if (this.transport == NativeTransport.NIO) {
+            return;
+        }
+        setIfAbsent(DUBBO_EPOLL_ENABLE, Boolean.TRUE.toString());
+    }
+
+    private void applyAllocator() {
+        if (this.directBuffers != null) {
+            setIfAbsent(NETTY_NO_PREFER_DIRECT, String.valueOf(!this.directBuffers));
+            // initializes netty with our properties unless something already did
+            final var effective = PlatformDependent.directBufferPreferred();
+            if (effective != this.directBuffers) {
+                LOGGER.warn(DubboConstants.Properties.TRANSPORT_BUFFER_DIRECT + "=" + this.directBuffers
+                        + " ignored, netty initialized with direct buffers " + (effective ? "preferred" : "not preferred")
+                        + " already, pass -D" + NETTY_NO_PREFER_DIRECT + "=" + !this.directBuffers + " instead");
+            }
+        }
+        if (this.bufferArenas != null) {
+            setIfAbsent(NETTY_DIRECT_ARENAS, String.valueOf(this.bufferArenas));
+            setIfAbsent(NETTY_HEAP_ARENAS, String.valueOf(this.bufferArenas));
+            final var direct = PooledByteBufAllocator.defaultNumDirectArena();
+            final var heap = PooledByteBufAllocator.defaultNumHeapArena();
+            if (direct != this.bufferArenas || heap != this.bufferArenas) {
+                LOGGER.warn(DubboConstants.Properties.TRANSPORT_BUFFER_ARENAS + "=" + this.bufferArenas
+                        + " ignored, netty allocator initialized with " + direct + " direct and " + heap
+                        + " heap arenas already, pass -D" + NETTY_DIRECT_ARENAS + " and -D" + NETTY_HEAP_ARENAS
+                        + " instead");
+            }
+        }
+    }
+
+    private static void setIfAbsent(final String key, final String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /// integer property `key` within `[min, max]`, `null` if unset
+    private static Integer integer(final String key, final int min, final int max) {
+        final var raw = System.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        final int value;
+        try {
+            value = Integer.parseInt(raw.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not an integer: " + raw, e);
+        }
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(key + " must be within [" + min + ", " + max + "]: " + value);
+        }
+        return value;
+    }
+
+    /// boolean property `key`, `null` if unset
+    private static Boolean bool(final String key) {
+        final var raw = System.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return null;
+        }
+        return switch (raw.trim().toLowerCase()) {
+            case "true" -> Boolean.TRUE;
+            case "false" -> Boolean.FALSE;
+            default -> throw new IllegalArgumentException(key + " is not a boolean: " + raw);
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "TripleTransport{transport=" + this.transport.getKey()
+                + ", ioThreads=" + this.ioThreads
+                + ", workerThreads=" + this.workerThreads
+                + ", directBuffers=" + this.directBuffers
+                + ", bufferArenas=" + this.bufferArenas
+                + ", maxStreams=" + this.maxStreams
+                + ", maxFrame=" + this.maxFrame
+                + ", initialWindow=" + this.initialWindow
+                + '}';
+    }
+}
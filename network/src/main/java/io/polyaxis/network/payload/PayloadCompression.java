@@ -0,0 +1,308 @@
+package io.polyaxis.network.payload;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.util.Native;
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.polyaxis.network.DubboConstants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/// Per-method compression of `google.protobuf.Any` payloads on the triple link.
+///
+/// Dubbo's own triple compression is one codec for every call of a consumer, so
+/// payloads are compressed here instead: an `Any` at least as large as the
+/// method's `network.compression.methods` threshold is replaced by a
+/// [CompressedAny] packed in an `Any`, anything smaller (e.g. streamed token
+/// frames) travels as is. Receivers call [#decompress(Any)] on every payload,
+/// which returns uncompressed ones untouched.
+///
+/// Each side advertises the codecs it decodes (`network.compression.accept`):
+/// brokers in `BrokerRegisterReq`, dispatchers in the register and refresh
+/// responses and in the `Metadata` of every invocation. A payload is only
+/// compressed with a codec its receiver advertised, a peer advertising nothing
+/// gets everything uncompressed.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/30
+/// @since 1.0
+public final class PayloadCompression {
+
+    /// `BrokerService.invokeCapability`, arguments and results
+    public static final String INVOKE_CAPABILITY = DubboConstants.METHOD_INVOKE_CAPABILITY;
+
+    /// `BrokerService.setPlugin`, settings
+    public static final String SET_PLUGIN = DubboConstants.METHOD_SET_PLUGIN;
+
+    /// `DispatcherService.registerBroker`, plugin catalogue
+    public static final String REGISTER_BROKER = DubboConstants.METHOD_REGISTER_BROKER;
+
+    /// `DispatcherService.refreshBroker`, plugin catalogue delta
+    public static final String REFRESH_BROKER = DubboConstants.METHOD_REFRESH_BROKER;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadCompression.class);
+
+    private static final String COMPRESSED_TYPE_URL =
+            "type.googleapis.com/" + CompressedAny.getDescriptor().getFullName();
+
+    /// decompressed size accepted from a peer, a corrupt or hostile size must not allocate the heap away
+    private static final int MAX_SIZE = 64 << 20;
+
+    private static final boolean ZSTD_AVAILABLE = zstdAvailable();
+
+    /// method -> rule
+    private final Map<String, Rule> rules;
+
+    private final List<Codec> accepted;
+
+    PayloadCompression(final Map<String, Rule> rules, final List<Codec> accepted) {
+        this.rules = Map.copyOf(rules);
+        this.accepted = List.copyOf(accepted);
+    }
+
+    /// Read and validate the compression settings.
+    ///
+    /// @return payload compression
+    /// @throws IllegalArgumentException if a rule or codec is malformed
+    public static PayloadCompression fromProperties() {
+        final var rules = new HashMap<String, Rule>();
+        for (final var raw : tokens(System.getProperty(DubboConstants.Properties.COMPRESSION_METHODS))) {
+            final var parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(DubboConstants.Properties.COMPRESSION_METHODS
+                        + " expects method:codec:minBytes, got: " + raw);
+            }
+            var codec = codec(parts[1]);
+            if (codec == Codec.CODEC_ZSTD && !ZSTD_AVAILABLE) {
+                LOGGER.warn("zstd is unavailable on this platform, compressing " + parts[0] + " with gzip");
+                codec = Codec.CODEC_GZIP;
+            }
+            final int minBytes;
+            try {
+                minBytes = Integer.parseInt(parts[2].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(DubboConstants.Properties.COMPRESSION_METHODS
+                        + " has a malformed minBytes: " + raw, e);
+            }
+            rules.put(parts[0].trim(), new Rule(codec, Math.max(minBytes, 0)));
+        }
+        final var accepted = new ArrayList<Codec>();
+        for (final var raw : tokens(System.getProperty(DubboConstants.Properties.COMPRESSION_ACCEPT,
+                DubboConstants.COMPRESSION_DEFAULT_ACCEPT))) {
+            final var codec = codec(raw);
+            if (codec == Codec.CODEC_NONE || accepted.contains(codec)
+                    || (codec == Codec.CODEC_ZSTD && !ZSTD_AVAILABLE)) {
+                continue;
+            }
+            accepted.add(codec);
+        }
+        return new PayloadCompression(rules, accepted);
+    }
+
+    /// codecs this side decodes, to advertise to peers
+    public List<Codec> getAccepted() {
+        return this.accepted;
+    }
+
+    /// Compress `payload` if `method` has a rule, the payload reaches its
+    /// threshold and the receiver accepts its codec.
+    ///
+    /// @param method        rpc method carrying the payload
+    /// @param payload       payload
+    /// @param peerAccepted  codecs the receiver decodes
+    /// @return compressed payload, or `payload` itself
+    public Any compress(final String method, final Any payload, final List<Codec> peerAccepted) {
+        return this.accepts(method, peerAccepted) ? this.compress(method, payload) : payload;
+    }
+
+    /// Compress `payload` if `method` has a rule and the payload reaches its
+    /// threshold, whichever receiver gets it: callers sending one payload to
+    /// several peers compress once and check each peer with [#accepts(String, List)].
+    ///
+    /// @param method  rpc method carrying the payload
+    /// @param payload payload
+    /// @return compressed payload, or `payload` itself
+    public Any compress(final String method, final Any payload) {
+        if (!this.isCompressible(method, payload)) {
+            return payload;
+        }
+        final var codec = this.rules.get(method).codec();
+        final var original = payload.toByteArray();
+        final var data = encode(codec, original);
+        if (data.length >= original.length) {
+            // incompressible, do not make the receiver pay for nothing
+            return payload;
+        }
+        return Any.newBuilder()
+                .setTypeUrl(COMPRESSED_TYPE_URL)
+                .setValue(CompressedAny.newBuilder()
+                        .setCodec(codec)
+                        .setSize(original.length)
+                        .setData(ByteString.copyFrom(data))
+                        .build()
+                        .toByteString())
+                .build();
+    }
+
+    /// whether [#compress(String, Any)] would encode `payload`, without encoding it
+    public boolean isCompressible(final String method, final Any payload) {
+        final var rule = this.rules.get(method);
+        if (rule == null || rule.codec() == Codec.CODEC_NONE) {
+            return false;
+        }
+        final var size = payload.getSerializedSize();
+        return size >= rule.minBytes() && size <= MAX_SIZE && !isCompressed(payload);
+    }
+
+    /// whether a receiver decoding `peerAccepted` decodes payloads of `method` compressed here
+    public boolean accepts(final String method, final List<Codec> peerAccepted) {
+        final var rule = this.rules.get(method);
+        return rule != null && rule.codec() != Codec.CODEC_NONE && peerAccepted.contains(rule.codec());
+    }
+
+    /// [#compress(String, Any, List)] every value of `payloads`.
+    public Map<String, Any> compress(
+            final String method,
+            final Map<String, Any> payloads,
+            final List<Codec> peerAccepted
+    ) {
+        if (!this.rules.containsKey(method) || peerAccepted.isEmpty()) {
+            return payloads;
+        }
+        final var compressed = new LinkedHashMap<String, Any>(payloads.size() * 4 / 3 + 1);
+        payloads.forEach((key, value) -> compressed.put(key, this.compress(method, value, peerAccepted)));
+        return compressed;
+    }
+
+    /// whether `payload` is a [CompressedAny]
+    public static boolean isCompressed(final Any payload) {
+        return payload.getTypeUrl().equals(COMPRESSED_TYPE_URL);
+    }
+
+    /// Restore a payload compressed by a peer, uncompressed payloads are returned as is.
+    ///
+    /// @param payload payload
+    /// @return original payload
+    /// @throws IllegalArgumentException if the payload is corrupt or its codec unsupported
+    public static Any decompress(final Any payload) {
+        if (!isCompressed(payload)) {
+            return payload;
+        }
+        try {
+            final var compressed = CompressedAny.parseFrom(payload.getValue());
+            if (compressed.getSize() < 0 || compressed.getSize() > MAX_SIZE) {
+                throw new IllegalArgumentException("compressed payload too large: " + compressed.getSize());
+            }
+            return Any.parseFrom(decode(compressed.getCodec(), compressed.getData(), compressed.getSize()));
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalArgumentException("corrupt compressed payload", e);
+        }
+    }
+
+    /// [#decompress(Any)] every value of `payloads`.
+    public static Map<String, Any> decompress(final Map<String, Any> payloads) {
+        if (payloads.values().stream().noneMatch(PayloadCompression::isCompressed)) {
+            return payloads;
+        }
+        final var decompressed = new LinkedHashMap<String, Any>(payloads.size() * 4 / 3 + 1);
+        payloads.forEach((key, value) -> decompressed.put(key, decompress(value)));
+        return decompressed;
+    }
+
+    private static byte[] encode(final Codec codec, final byte[] original) {
+        return switch (codec) {
+            case CODEC_GZIP -> {
+                final var out = new ByteArrayOutputStream(Math.max(original.length / 4, 64));
+                try (var gzip = new GZIPOutputStream(out)) {
+                    gzip.write(original);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                yield out.toByteArray();
+            }
+            case CODEC_ZSTD -> Zstd.compress(original, DubboConstants.COMPRESSION_ZSTD_LEVEL);
+            default -> original;
+        };
+    }
+
+    private static byte[] decode(final Codec codec, final ByteString data, final int size) {
+        final byte[] original;
+        switch (codec) {
+            case CODEC_GZIP -> {
+                try (var gzip = new GZIPInputStream(data.newInput())) {
+                    original = gzip.readNBytes(size);
+                    if (gzip.read() != -1) {
+                        throw new IllegalArgumentException("compressed payload exceeds its declared size");
+                    }
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("corrupt gzip payload", e);
+                }
+            }
+            case CODEC_ZSTD -> {
+                if (!ZSTD_AVAILABLE) {
+                    throw new IllegalArgumentException("zstd is unavailable on this platform");
+                }
+                try {
+                    original = Zstd.decompress(data.toByteArray(), size);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("corrupt zstd payload", e);
+                }
+            }
+            default -> throw new IllegalArgumentException("unsupported payload codec: " + codec);
+        }
+        if (original.length != size) {
+            throw new IllegalArgumentException("compressed payload is shorter than its declared size");
+        }
+        return original;
+    }
+
+    /// codec by key, `none`, `gzip` or `zstd`
+    private static Codec codec(final String key) {
+        for (final var codec : Codec.values()) {
+            if (codec != Codec.UNRECOGNIZED && codec.name().equals("CODEC_" + key.trim().toUpperCase(Locale.ROOT))) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("unknown payload codec: " + key);
+    }
+
+    private static List<String> tokens(final String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        final var tokens = new ArrayList<String>();
+        for (final var token : value.split(",")) {
+            if (!token.isBlank()) {
+                tokens.add(token.trim());
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean zstdAvailable() {
+        try {
+            Native.load();
+            return Native.isLoaded();
+        } catch (LinkageError e) {
+            LOGGER.warn("zstd native library unavailable, payloads use gzip only: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /// compression of one method's payloads
+    record Rule(Codec codec, int minBytes) {
+    }
+}
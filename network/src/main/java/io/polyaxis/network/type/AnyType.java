@@ -0,0 +1,86 @@
+package io.polyaxis.network.type;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+/// A message type registered in an [AnyTypeRegistry], carrying its cached
+/// [Parser] and numeric id.
+///
+/// Plugins keep the instance returned at registration and unpack through it,
+/// checking a payload's type is one lookup in the registry plus an identity
+/// comparison with this instance.
+///
+/// @param <T> message type
+/// @author github.com/MoritzArena
+/// @date 2025/07/25
+/// @since 1.0
+public final class AnyType<T extends Message> {
+
+    private final AnyTypeRegistry registry;
+
+    private final int id;
+
+    private final String typeUrl;
+
+    private final Class<T> type;
+
+    private final Parser<T> parser;
+
+    AnyType(
+            final AnyTypeRegistry registry,
+            final int id,
+            final String typeUrl,
+            final Class<T> type,
+            final Parser<T> parser
+    ) {
+        this.registry = registry;
+        this.id = id;
+        this.typeUrl = typeUrl;
+        this.type = type;
+        this.parser = parser;
+    }
+
+    /// @return `true` if `any` carries this type
+    public boolean is(final Any any) {
+        return this.registry.lookup(any) == this;
+    }
+
+    /// Unpack `any` with the cached parser.
+    ///
+    /// @param any packed message
+    /// @return message
+    /// @throws InvalidProtocolBufferException if `any` carries another type or is malformed
+    public T unpack(final Any any) throws InvalidProtocolBufferException {
+        if (!this.is(any)) {
+            throw new InvalidProtocolBufferException("type url " + any.getTypeUrl() + " is not " + this.typeUrl);
+        }
+        return this.parser.parseFrom(any.getValue());
+    }
+
+    /// Pack `message`, reusing the registered type URL so lookups of the packed
+    /// `Any` hit the hash the string already cached.
+    ///
+    /// @param message message
+    /// @return packed message
+    public Any pack(final T message) {
+        return Any.newBuilder().setTypeUrl(this.typeUrl).setValue(message.toByteString()).build();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTypeUrl() {
+        return typeUrl;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public Parser<T> getParser() {
+        return parser;
+    }
+}
@@ -0,0 +1,86 @@
+package io.polyaxis.network.type;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/// Registry of the message types carried in `google.protobuf.Any` arguments,
+/// results, plugin descriptors and settings, populated by plugins at load time.
+///
+/// Every type URL maps to an [AnyType] holding its cached [Parser] and a numeric
+/// id. Lookups are keyed by the type URL string of the `Any`: a parsed `Any`
+/// holds it as a `String` already, and caches it after the first UTF-8 decode
+/// otherwise, so a lookup hashes a string that caches its hash. Registrations
+/// are rare and copy the table, lookups read it without locking.
+///
+/// @author github.com/MoritzArena
+/// @date 2025/07/25
+/// @since 1.0
+public final class AnyTypeRegistry {
+
+    private static final String TYPE_URL_PREFIX = "type.googleapis.com/";
+
+    private final Object writeLock = new Object();
+
+    /// type url -> type
+    private volatile Map<String, AnyType<?>> types = Map.of();
+
+    /// Register the type of `defaultInstance`, idempotent.
+    ///
+    /// @param defaultInstance default instance of the message type
+    /// @param <T>             message type
+    /// @return registered type
+    @SuppressWarnings("unchecked")
+    public <T extends Message> AnyType<T> register(final T defaultInstance) {
+        final var typeUrl = TYPE_URL_PREFIX + defaultInstance.getDescriptorForType().getFullName();
+        synchronized (this.writeLock) {
+            final var current = this.types;
+            final var existing = current.get(typeUrl);
+            if (existing != null) {
+                if (existing.getType() != defaultInstance.getClass()) {
+                    throw new IllegalStateException(typeUrl + " already registered by " + existing.getType().getName());
+                }
+                return (AnyType<T>) existing;
+            }
+            final var type = new AnyType<>(this, current.size() + 1, typeUrl,
+                    (Class<T>) defaultInstance.getClass(), (Parser<T>) defaultInstance.getParserForType());
+            final var copy = new HashMap<>(current);
+            copy.put(typeUrl, type);
+            this.types = Map.copyOf(copy);
+            return type;
+        }
+    }
+
+    /// Type carried by `any`.
+    ///
+    /// @param any packed message
+    /// @return type, `null` if not registered
+    public AnyType<?> lookup(final Any any) {
+        return this.types.get(any.getTypeUrl());
+    }
+
+    /// Numeric id of the type carried by `any`.
+    ///
+    /// @param any packed message
+    /// @return type id, `0` if not registered
+    public int idOf(final Any any) {
+        final var type = this.lookup(any);
+        return type == null ? 0 : type.getId();
+    }
+
+    /// Wrap `any` to be unpacked on first access.
+    ///
+    /// @param any packed message
+    /// @return lazy message, `null` if its type is not registered
+    public LazyAny<?> lazy(final Any any) {
+        final var type = this.lookup(any);
+        return type == null ? null : lazy(any, type);
+    }
+
+    private static <T extends Message> LazyAny<T> lazy(final Any any, final AnyType<T> type) {
+        return new LazyAny<>(any, type);
+    }
+}
@@ -0,0 +1,54 @@
+package io.polyaxis.network.type;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+
+/// An [Any] unpacked on first access only.
+///
+/// Routing reads [#getTypeId()] or [#getAny()] and never pays for parsing,
+/// the payload is parsed once if and when [#get()] is called.
+///
+/// @param <T> message type
+/// @author github.com/MoritzArena
+/// @date 2025/07/25
+/// @since 1.0
+public final class LazyAny<T extends Message> {
+
+    private final Any any;
+
+    private final AnyType<T> type;
+
+    private volatile T value;
+
+    LazyAny(final Any any, final AnyType<T> type) {
+        this.any = any;
+        this.type = type;
+    }
+
+    /// Unpacked message, parsed on the first call.
+    ///
+    /// @return message
+    /// @throws InvalidProtocolBufferException if the payload is malformed
+    public T get() throws InvalidProtocolBufferException {
+        var current = this.value;
+        if (current == null) {
+            // racing callers may both parse, the messages are equal and immutable
+            current = this.type.getParser().parseFrom(this.any.getValue());
+            this.value = current;
+        }
+        return current;
+    }
+
+    public int getTypeId() {
+        return this.type.getId();
+    }
+
+    public AnyType<T> getType() {
+        return type;
+    }
+
+    public Any getAny() {
+        return any;
+    }
+}
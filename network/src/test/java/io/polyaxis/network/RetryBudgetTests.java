@@ -0,0 +1,59 @@
+package io.polyaxis.network;
+
+import org.apache.dubbo.rpc.TriRpcStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [RetryBudget] token accounting.
+class RetryBudgetTests {
+
+    @Test
+    void startsWithFullBurst() {
+        final var budget = new RetryBudget(0.1D, 2);
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void successesRefillFractionally() {
+        final var budget = new RetryBudget(0.5D, 1);
+        assertTrue(budget.tryRetry());
+        budget.onSuccess();
+        assertFalse(budget.tryRetry());
+        budget.onSuccess();
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void refillIsCappedByBurst() {
+        final var budget = new RetryBudget(1D, 2);
+        for (int i = 0; i < 100; i++) {
+            budget.onSuccess();
+        }
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void zeroRatioNeverRefills() {
+        final var budget = new RetryBudget(0D, 1);
+        assertTrue(budget.tryRetry());
+        for (int i = 0; i < 100; i++) {
+            budget.onSuccess();
+        }
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void onlyUnavailableIsRetryable() {
+        assertTrue(RetryBudget.isRetryable(TriRpcStatus.UNAVAILABLE.asException()));
+        assertFalse(RetryBudget.isRetryable(TriRpcStatus.INTERNAL.asException()));
+        assertFalse(RetryBudget.isRetryable(TriRpcStatus.DEADLINE_EXCEEDED.asException()));
+        assertFalse(RetryBudget.isRetryable(new IllegalStateException()));
+    }
+}
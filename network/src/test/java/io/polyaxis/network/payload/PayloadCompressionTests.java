@@ -0,0 +1,182 @@
+package io.polyaxis.network.payload;
+
+import com.google.protobuf.Any;
+import com.google.protobuf.ByteString;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// [PayloadCompression] round trips, and the bounds and corrupt input of
+/// payloads compressed by a peer.
+class PayloadCompressionTests {
+
+    private static final String TYPE_URL = "type.googleapis.com/" + CompressedAny.getDescriptor().getFullName();
+
+    private static final int MAX_SIZE = 64 << 20;
+
+    private final PayloadCompression compression = new PayloadCompression(
+            Map.of(PayloadCompression.INVOKE_CAPABILITY, new PayloadCompression.Rule(Codec.CODEC_GZIP, 256)),
+            List.of(Codec.CODEC_GZIP));
+
+    @Test
+    void roundTrip() {
+        final var payload = payload(4096);
+        final var compressed = this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, payload,
+                List.of(Codec.CODEC_GZIP));
+        assertTrue(PayloadCompression.isCompressed(compressed));
+        assertTrue(compressed.getSerializedSize() < payload.getSerializedSize());
+        assertEquals(payload, PayloadCompression.decompress(compressed));
+    }
+
+    @Test
+    void keepsPayloadBelowThreshold() {
+        final var payload = payload(16);
+        assertFalse(this.compression.isCompressible(PayloadCompression.INVOKE_CAPABILITY, payload));
+        assertSame(payload, this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, payload));
+    }
+
+    @Test
+    void keepsPayloadOfMethodWithoutRule() {
+        final var payload = payload(4096);
+        assertSame(payload, this.compression.compress(PayloadCompression.SET_PLUGIN, payload));
+    }
+
+    @Test
+    void keepsPayloadForPeerNotAcceptingCodec() {
+        final var payload = payload(4096);
+        assertFalse(this.compression.accepts(PayloadCompression.INVOKE_CAPABILITY, List.of(Codec.CODEC_ZSTD)));
+        assertSame(payload, this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, payload,
+                List.of(Codec.CODEC_ZSTD)));
+        assertSame(payload, this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, payload, List.of()));
+    }
+
+    @Test
+    void neverCompressesTwice() {
+        final var compressed = this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, payload(4096));
+        assertSame(compressed, this.compression.compress(PayloadCompression.INVOKE_CAPABILITY, compressed));
+    }
+
+    @Test
+    void decompressKeepsUncompressedPayload() {
+        final var payload = payload(16);
+        assertSame(payload, PayloadCompression.decompress(payload));
+    }
+
+    @Test
+    void rejectsDeclaredSizeAboveBound() {
+        final var original = payload(4096).toByteArray();
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCompression.decompress(compressed(Codec.CODEC_GZIP, MAX_SIZE + 1, gzip(original))));
+    }
+
+    @Test
+    void rejectsNegativeDeclaredSize() {
+        final var original = payload(4096).toByteArray();
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCompression.decompress(compressed(Codec.CODEC_GZIP, -1, gzip(original))));
+    }
+
+    @Test
+    void rejectsPayloadShorterThanDeclared() {
+        final var original = payload(4096).toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> PayloadCompression.decompress(
+                compressed(Codec.CODEC_GZIP, original.length + 1, gzip(original))));
+    }
+
+    @Test
+    void rejectsPayloadLongerThanDeclared() {
+        final var original = payload(4096).toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> PayloadCompression.decompress(
+                compressed(Codec.CODEC_GZIP, original.length - 1, gzip(original))));
+    }
+
+    @Test
+    void rejectsCorruptGzip() {
+        final var garbage = "not gzip at all".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCompression.decompress(compressed(Codec.CODEC_GZIP, 64, garbage)));
+    }
+
+    @Test
+    void rejectsTruncatedGzip() {
+        final var data = gzip(payload(4096).toByteArray());
+        final var truncated = new byte[data.length / 2];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCompression.decompress(compressed(Codec.CODEC_GZIP, 4096, truncated)));
+    }
+
+    @Test
+    void rejectsCorruptZstd() {
+        // whether zstd is available or not, the payload cannot be restored
+        final var garbage = "not zstd at all".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class,
+                () -> PayloadCompression.decompress(compressed(Codec.CODEC_ZSTD, 64, garbage)));
+    }
+
+    @Test
+    void rejectsUnsupportedCodec() {
+        final var original = payload(4096).toByteArray();
+        assertThrows(IllegalArgumentException.class, () -> PayloadCompression.decompress(
+                compressed(Codec.CODEC_NONE, original.length, original)));
+    }
+
+    @Test
+    void rejectsCorruptEnvelope() {
+        // field 3 (data) declaring 127 bytes, none following
+        final var envelope = Any.newBuilder()
+                .setTypeUrl(TYPE_URL)
+                .setValue(ByteString.copyFrom(new byte[]{0x1A, 0x7F}))
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> PayloadCompression.decompress(envelope));
+    }
+
+    @Test
+    void rejectsCorruptOriginal() {
+        // decodes fine, but is not a serialized Any
+        final var original = new byte[]{0x0A, 0x7F};
+        assertThrows(IllegalArgumentException.class, () -> PayloadCompression.decompress(
+                compressed(Codec.CODEC_GZIP, original.length, gzip(original))));
+    }
+
+    /// compressible payload of about `size` bytes
+    private static Any payload(final int size) {
+        return Any.newBuilder()
+                .setTypeUrl("type.googleapis.com/test.Payload")
+                .setValue(ByteString.copyFromUtf8("a".repeat(size)))
+                .build();
+    }
+
+    private static Any compressed(final Codec codec, final int size, final byte[] data) {
+        return Any.newBuilder()
+                .setTypeUrl(TYPE_URL)
+                .setValue(CompressedAny.newBuilder()
+                        .setCodec(codec)
+                        .setSize(size)
+                        .setData(ByteString.copyFrom(data))
+                        .build()
+                        .toByteString())
+                .build();
+    }
+
+    private static byte[] gzip(final byte[] original) {
+        final var out = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(out)) {
+            gzip.write(original);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+}